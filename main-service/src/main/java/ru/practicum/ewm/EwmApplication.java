@@ -2,12 +2,14 @@ package ru.practicum.ewm;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main entrypoint for the Explore With Me main service.
  * Bootstraps REST API, JPA, validation and actuator endpoints.
  */
 @SpringBootApplication
+@EnableScheduling
 public class EwmApplication {
     public static void main(String[] args) {
         SpringApplication.run(EwmApplication.class, args);
@@ -3,13 +3,13 @@ package ru.practicum.ewm.comments.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.comments.model.Comment;
 import ru.practicum.ewm.comments.model.CommentState;
 
-import java.util.Collection;
-import java.util.List;
+import java.time.LocalDateTime;
 
 /**
  * JPA repository for comment entities.
@@ -26,16 +26,18 @@ public interface CommentRepository extends JpaRepository<Comment, Long> {
     /** Returns comments by author (any state). */
     Page<Comment> findByAuthor_Id(Long authorId, Pageable pageable);
 
-    /** Counts comments for an event by moderation state. */
-    long countByEvent_IdAndState(Long eventId, CommentState state);
-
-    /** Batch count by event ids and state (to avoid N+1). */
-    @Query("""
-           SELECT c.event.id, COUNT(c)
-           FROM Comment c
-           WHERE c.state = :state AND c.event.id IN :eventIds
-           GROUP BY c.event.id
-           """)
-    List<Object[]> countByEventIdsAndState(@Param("eventIds") Collection<Long> eventIds,
-                                           @Param("state") CommentState state);
-}
\ No newline at end of file
+    /**
+     * Moves a comment from {@code from} to {@code to} only if it is still in {@code from}; returns the number of rows
+     * changed, so of two concurrent moderators exactly one sees 1.
+     */
+    @Modifying
+    @Query("UPDATE Comment c SET c.state = :to, c.updateDate = :now, c.version = c.version + 1"
+            + " WHERE c.id = :id AND c.state = :from")
+    int updateState(@Param("id") long id, @Param("from") CommentState from, @Param("to") CommentState to,
+                    @Param("now") LocalDateTime now);
+
+    /** Deletes a comment only if it is still in {@code state}; returns the number of rows deleted. */
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.id = :id AND c.state = :state")
+    int deleteInState(@Param("id") long id, @Param("state") CommentState state);
+}
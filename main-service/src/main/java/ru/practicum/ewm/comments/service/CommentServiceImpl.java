@@ -35,6 +35,9 @@ import java.util.List;
  *   <li>Authors can edit their published comments within 24 hours after creation.</li>
  * </ul>
  * Includes validation for ownership, parent-child consistency, and time-based editing window.
+ * Every transition into or out of {@code PUBLISHED} also moves the event's {@code published_comments} counter.
+ * Moderation and deletion are conditional on the state that was read, so of two concurrent transitions of the same
+ * comment only one applies and moves the counter; the other fails with a conflict.
  */
 @Service
 @RequiredArgsConstructor
@@ -137,7 +140,15 @@ public class CommentServiceImpl implements CommentService {
             throw new ConflictException("Cannot delete others' comments");
         }
 
-        repository.delete(comment);
+        if (repository.deleteInState(commentId, comment.getState()) == 0) {
+            if (!repository.existsById(commentId)) {
+                throw new NotFoundException("Comment not found: id=" + commentId);
+            }
+            throw new ConflictException("Comment was changed concurrently, retry");
+        }
+        if (comment.getState() == CommentState.PUBLISHED) {
+            eventRepository.addPublishedComments(comment.getEvent().getId(), -1);
+        }
     }
 
     /**
@@ -201,11 +212,12 @@ public class CommentServiceImpl implements CommentService {
     public void approveComment(long commentId) {
         Comment comment = repository.findById(commentId)
                 .orElseThrow(() -> new NotFoundException("Comment not found: id=" + commentId));
-        if (comment.getState() != CommentState.PENDING) {
+        if (comment.getState() != CommentState.PENDING
+                || repository.updateState(commentId, CommentState.PENDING, CommentState.PUBLISHED,
+                        LocalDateTime.now()) == 0) {
             throw new ConflictException("Only pending comments can be approved");
         }
-        comment.setState(CommentState.PUBLISHED);
-        repository.save(comment);
+        eventRepository.addPublishedComments(comment.getEvent().getId(), 1);
     }
 
     /**
@@ -217,11 +229,11 @@ public class CommentServiceImpl implements CommentService {
     public void rejectComment(long commentId) {
         Comment comment = repository.findById(commentId)
                 .orElseThrow(() -> new NotFoundException("Comment not found: id=" + commentId));
-        if (comment.getState() != CommentState.PENDING) {
+        if (comment.getState() != CommentState.PENDING
+                || repository.updateState(commentId, CommentState.PENDING, CommentState.REJECTED,
+                        LocalDateTime.now()) == 0) {
             throw new ConflictException("Only pending comments can be rejected");
         }
-        comment.setState(CommentState.REJECTED);
-        repository.save(comment);
     }
 
     /**
@@ -0,0 +1,24 @@
+package ru.practicum.ewm.common.util;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * One keyset page: its rows and the token of the next page ({@code null} on the last page).
+ * Carries no total count, so no {@code COUNT(*)} is run.
+ */
+public record CursorPage<T>(List<T> content, String next) {
+
+    /** Response header carrying {@link #next()}; absent on the last page. */
+    public static final String NEXT_HEADER = "X-Next-Cursor";
+
+    /** 200 with the rows as body and the next cursor, if any, in {@link #NEXT_HEADER}. */
+    public ResponseEntity<List<T>> toResponse() {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (next != null) {
+            response.header(NEXT_HEADER, next);
+        }
+        return response.body(content);
+    }
+}
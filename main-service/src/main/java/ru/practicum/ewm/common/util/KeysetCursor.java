@@ -0,0 +1,34 @@
+package ru.practicum.ewm.common.util;
+
+import ru.practicum.ewm.common.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last row of a keyset page: the sort timestamp and the id that breaks ties.
+ * Clients get it as an opaque URL-safe token and send it back unchanged as {@code after}.
+ */
+public record KeysetCursor(LocalDateTime at, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public String encode() {
+        byte[] raw = (at.toString() + SEPARATOR + id).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /** Decodes a token from {@link #encode()}; {@code null} for a blank token (first page). */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ru.practicum.ewm.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import ru.practicum.stats.client.StatsClient;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.EventViewsRequest;
+import ru.practicum.stats.dto.EventViewsResponse;
+import ru.practicum.stats.dto.StatsQueryItem;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.StatsEngineConfiguration;
+import ru.practicum.statsserver.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link StatsClient} that runs the stats engine in this JVM instead of calling the stats server.
+ * <p>
+ * The stats-engine service layer is started as a separate, non-web Spring context on its own datasource
+ * ({@code stats.embedded.datasource.*}) and called directly, so hits and view counts skip JSON and the network.
+ * The context is independent of the main one (no parent), so its datasource, JPA and transaction beans never
+ * mix with the main service's; it is closed together with the client.
+ */
+@Slf4j
+public class EmbeddedStatsClient implements StatsClient, AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final StatsService statsService;
+    private final String appName;
+
+    public EmbeddedStatsClient(String url, String username, String password, int poolSize, String appName) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", url);
+        properties.put("spring.datasource.username", username);
+        properties.put("spring.datasource.password", password);
+        properties.put("spring.datasource.driver-class-name", "org.postgresql.Driver");
+        properties.put("spring.datasource.hikari.pool-name", "stats-embedded");
+        properties.put("spring.datasource.hikari.maximum-pool-size", poolSize);
+        properties.put("spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", true);
+        properties.put("spring.sql.init.mode", "always");
+        properties.put("spring.sql.init.schema-locations", "classpath:db/stats-schema.sql");
+        properties.put("spring.jpa.defer-datasource-initialization", false);
+        properties.put("spring.jpa.hibernate.ddl-auto", "none");
+        properties.put("spring.application.name", "stats-embedded");
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("statsEmbedded", properties));
+
+        log.info("Starting embedded stats engine on {}", url);
+        this.context = new SpringApplicationBuilder(StatsEngineConfiguration.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .environment(environment)
+                .registerShutdownHook(false)
+                .run();
+        this.statsService = context.getBean(StatsService.class);
+        this.appName = appName;
+    }
+
+    @Override
+    public void sendHit(HttpServletRequest request) {
+        statsService.saveHit(toHit(request));
+    }
+
+    @Override
+    public EndpointHitDto toHit(HttpServletRequest request) {
+        return EndpointHitDto.builder()
+                .app(appName)
+                .uri(request.getRequestURI())
+                .ip(request.getRemoteAddr())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    @Override
+    public void sendHits(List<EndpointHitDto> hits) {
+        if (hits == null || hits.isEmpty()) return;
+        if (hits.size() == 1) {
+            statsService.saveHit(hits.get(0));
+            return;
+        }
+        statsService.saveHits(hits);
+    }
+
+    @Override
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        requireOrdered(start, end);
+        return statsService.getStats(start, end, uris, unique, false);
+    }
+
+    @Override
+    public List<List<ViewStats>> queryStats(List<StatsQueryItem> items) {
+        if (items == null || items.isEmpty()) return List.of();
+        items.forEach(item -> requireOrdered(item.getStart(), item.getEnd()));
+        return statsService.queryStats(items);
+    }
+
+    @Override
+    public Map<Long, Long> getEventViews(long[] eventIds, LocalDateTime start, LocalDateTime end, boolean unique) {
+        Map<Long, Long> result = new HashMap<>(eventIds.length * 2);
+        if (eventIds.length == 0) return result;
+        requireOrdered(start, end);
+        EventViewsResponse resp = statsService.getEventViews(new EventViewsRequest(eventIds, start, end, unique));
+        long[] views = resp.getViews() != null ? resp.getViews() : new long[eventIds.length];
+        for (int i = 0; i < eventIds.length; i++) {
+            result.put(eventIds[i], i < views.length ? views[i] : 0L);
+        }
+        return result;
+    }
+
+    /** Drains buffered hits and stops the engine. */
+    @Override
+    public void close() {
+        log.info("Stopping embedded stats engine");
+        context.close();
+    }
+
+    /** Same check the stats server applies before answering over HTTP. */
+    private static void requireOrdered(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || end.isBefore(start)) {
+            throw new IllegalArgumentException("end must be equal to or after start");
+        }
+    }
+}
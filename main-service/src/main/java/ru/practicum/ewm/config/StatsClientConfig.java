@@ -1,51 +1,162 @@
 package ru.practicum.ewm.config;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.web.client.RestTemplate;
+import ru.practicum.stats.client.AsyncStatsClient;
+import ru.practicum.stats.client.Bulkhead;
+import ru.practicum.stats.client.CachingStatsClient;
+import ru.practicum.stats.client.CircuitBreaker;
+import ru.practicum.stats.client.HitSpool;
+import ru.practicum.stats.client.JdkHttpTransport;
+import ru.practicum.stats.client.ResilientStatsClient;
 import ru.practicum.stats.client.StatsClient;
 import ru.practicum.stats.client.StatsClientImpl;
 
 import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration for Stats service integration.
  * Provides:
- * - {@link RestTemplate} with sane timeouts
- * - {@link StatsClient} bean for event hit logging and view stats retrieval
+ * - {@link RestTemplate} with sane timeouts, on the default transport or on the pooled
+ *   {@link JdkHttpTransport} ({@code stats.transport.type=jdk})
+ * - {@link StatsClient} bean for event hit logging and view stats retrieval, over HTTP ({@code stats.mode=http})
+ *   or against a stats engine running in this JVM ({@code stats.mode=embedded}, {@link EmbeddedStatsClient});
+ *   with {@code stats.hits.mode=async} hits are queued and sent in batches by {@link AsyncStatsClient},
+ *   and hits that cannot be delivered are kept in an on-disk {@link HitSpool} until the server is back;
+ *   reads go through a {@link CircuitBreaker} and a {@link Bulkhead} ({@link ResilientStatsClient});
+ *   with {@code stats.cache.enabled=true} view counts are cached by {@link CachingStatsClient}
+ * - the unwrapped HTTP or embedded client ({@code statsBackendClient}) for background jobs, whose large and slow
+ *   but healthy queries must neither trip the read breaker nor take bulkhead slots from request traffic
  */
 @Configuration
+@EnableConfigurationProperties(StatsProperties.class)
 public class StatsClientConfig {
 
     /**
      * Configures {@link RestTemplate} for stats service communication.
      *
-     * @param builder the Spring {@link RestTemplateBuilder}.
-     * @return configured {@link RestTemplate} with standard JSON headers and timeouts.
+     * @param builder    the Spring {@link RestTemplateBuilder}.
+     * @param properties {@code stats.*} settings.
+     * @return configured {@link RestTemplate} with standard JSON headers and the
+     * {@code stats.connect-timeout-ms} / {@code stats.read-timeout-ms} timeouts.
      */
     @Bean
-    public RestTemplate statsRestTemplate(RestTemplateBuilder builder) {
-        return builder
-                .setConnectTimeout(Duration.ofSeconds(2))
-                .setReadTimeout(Duration.ofSeconds(5))
-                .defaultHeader("Accept", "application/json")
-                .build();
+    public RestTemplate statsRestTemplate(RestTemplateBuilder builder, StatsProperties properties) {
+        Duration connectTimeout = Duration.ofMillis(properties.connectTimeoutMs());
+        Duration readTimeout = Duration.ofMillis(properties.readTimeoutMs());
+        StatsProperties.Transport transport = properties.transport();
+        builder = builder.defaultHeader("Accept", "application/json");
+        if (!"jdk".equalsIgnoreCase(transport.type())) {
+            return builder
+                    .setConnectTimeout(connectTimeout)
+                    .setReadTimeout(readTimeout)
+                    .build();
+        }
+        builder = builder.requestFactory(
+                () -> JdkHttpTransport.requestFactory(transport.http2(), connectTimeout, readTimeout));
+        if (transport.gzip()) {
+            builder = builder.additionalInterceptors(JdkHttpTransport.gzipResponses());
+        }
+        return builder.build();
+    }
+
+    @Bean
+    public CircuitBreaker statsCircuitBreaker(StatsProperties properties) {
+        StatsProperties.Breaker breaker = properties.resilience().breaker();
+        return new CircuitBreaker(breaker.failureThreshold(), Duration.ofMillis(breaker.openMs()));
+    }
+
+    @Bean
+    public Bulkhead statsBulkhead(StatsProperties properties) {
+        StatsProperties.Bulkhead bulkhead = properties.resilience().bulkhead();
+        return new Bulkhead(bulkhead.maxConcurrent(), bulkhead.queueSize(), Duration.ofMillis(bulkhead.timeoutMs()));
+    }
+
+    /** Small bounded pool for stale-while-revalidate refreshes of cached view counts. */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService statsRefreshExecutor() {
+        return new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(64),
+                Thread.ofPlatform().name("stats-refresh-", 0).daemon().factory());
     }
 
     /**
-     * Creates a {@link StatsClient} for interaction with the stats-server.
+     * Creates the {@link StatsClient} that talks to the stats server, or to the engine in this JVM, without any
+     * decorators. Closed after {@link #statsClient} and {@link #statsHitSender}, which close it first once pending hits
+     * are sent; closing twice is harmless.
      *
      * @param statsRestTemplate configured {@link RestTemplate} instance.
      * @param baseUrl           base URL of the stats-server.
      * @param appName           application name for hit tracking.
-     * @return fully configured {@link StatsClientImpl}.
+     * @param properties        {@code stats.*} settings, see {@link StatsProperties}.
+     * @return {@link StatsClientImpl} or {@link EmbeddedStatsClient}, depending on {@code stats.mode}.
+     */
+    @Bean
+    public StatsClient statsBackendClient(RestTemplate statsRestTemplate,
+                                          @Value("${stats-server.url:http://stats-server:9090}") String baseUrl,
+                                          @Value("${app.name:ewm-main-service}") String appName,
+                                          StatsProperties properties) {
+        StatsProperties.Datasource embedded = properties.embedded().datasource();
+        return "embedded".equalsIgnoreCase(properties.mode())
+                ? new EmbeddedStatsClient(embedded.url(), embedded.username(), embedded.password(),
+                        embedded.poolSize(), appName)
+                : new StatsClientImpl(statsRestTemplate, baseUrl, appName);
+    }
+
+    /**
+     * Background hit sender ({@code stats.hits.mode=async}), a bean of its own so that its sent, dropped and queued
+     * counters can be reported by {@link StatsClientHealthIndicator}.
+     *
+     * @param statsBackendClient the undecorated client, see {@link #statsBackendClient}.
+     * @param properties         {@code stats.*} settings, see {@link StatsProperties}.
+     * @return {@link AsyncStatsClient} over {@code statsBackendClient}, spooling to a {@link HitSpool} if enabled.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "stats.hits.mode", havingValue = "async", matchIfMissing = true)
+    public AsyncStatsClient statsHitSender(StatsClient statsBackendClient, StatsProperties properties) {
+        StatsProperties.Hits hits = properties.hits();
+        StatsProperties.Spool spool = hits.spool();
+        HitSpool hitSpool = spool.enabled()
+                ? new HitSpool(spool.dir(), spool.segmentBytes(), spool.maxBytes())
+                : null;
+        return new AsyncStatsClient(statsBackendClient, hits.queueCapacity(), hits.batchSize(),
+                hits.flushIntervalMs(), hits.overflowPolicy(), hitSpool, spool.maxBackoffMs());
+    }
+
+    /**
+     * Creates the {@link StatsClient} used by request handling.
+     *
+     * @param statsBackendClient the undecorated client, see {@link #statsBackendClient}.
+     * @param statsHitSender     the background hit sender, present in async mode, see {@link #statsHitSender}.
+     * @param properties         {@code stats.*} settings, see {@link StatsProperties}.
+     * @return {@code statsHitSender} (or {@code statsBackendClient} in sync mode) wrapped in
+     * {@link ResilientStatsClient} and in {@link CachingStatsClient} when caching is enabled.
      */
     @Bean
-    public StatsClient statsClient(RestTemplate statsRestTemplate,
-                                   @Value("${stats-server.url:http://stats-server:9090}") String baseUrl,
-                                   @Value("${app.name:ewm-main-service}") String appName) {
-        return new StatsClientImpl(statsRestTemplate, baseUrl, appName);
+    @Primary
+    public StatsClient statsClient(StatsClient statsBackendClient,
+                                   ObjectProvider<AsyncStatsClient> statsHitSender,
+                                   StatsProperties properties,
+                                   ExecutorService statsRefreshExecutor,
+                                   CircuitBreaker statsCircuitBreaker,
+                                   Bulkhead statsBulkhead) {
+        StatsClient client = statsHitSender.getIfAvailable(() -> statsBackendClient);
+        client = new ResilientStatsClient(client, statsCircuitBreaker, statsBulkhead);
+        StatsProperties.Cache cache = properties.cache();
+        if (cache.enabled()) {
+            client = new CachingStatsClient(client, Duration.ofMillis(cache.ttlMs()), Duration.ofMillis(cache.staleMs()),
+                    cache.maxEntries(), Duration.ofSeconds(cache.keyBucketSeconds()), statsRefreshExecutor);
+        }
+        return client;
     }
-}
\ No newline at end of file
+}
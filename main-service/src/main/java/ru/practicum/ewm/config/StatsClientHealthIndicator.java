@@ -0,0 +1,50 @@
+package ru.practicum.ewm.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.client.AsyncStatsClient;
+import ru.practicum.stats.client.Bulkhead;
+import ru.practicum.stats.client.CircuitBreaker;
+
+/**
+ * Exposes the stats client's circuit breaker, bulkhead and, in async mode, hit sender counters (sent, dropped,
+ * queued) under {@code /actuator/health} ({@code statsClient}).
+ * UP while the circuit is closed, {@link #DEGRADED} while it is open or half-open: an unavailable stats server
+ * degrades view counts but does not make the main service unhealthy, so DEGRADED maps to HTTP 200 and is
+ * not part of the liveness or readiness groups (see {@code management.endpoint.health.status}). The status is
+ * public, the counters in its details are shown to authorized callers only.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatsClientHealthIndicator implements HealthIndicator {
+
+    public static final Status DEGRADED =
+            new Status("DEGRADED", "Stats circuit is not closed; view counts may be stale");
+
+    private final CircuitBreaker statsCircuitBreaker;
+    private final Bulkhead statsBulkhead;
+    private final ObjectProvider<AsyncStatsClient> statsHitSender;
+
+    @Override
+    public Health health() {
+        CircuitBreaker.State state = statsCircuitBreaker.getState();
+        Health.Builder health = Health.status(state == CircuitBreaker.State.CLOSED ? Status.UP : DEGRADED);
+        statsHitSender.ifAvailable(sender -> health
+                .withDetail("hitsSent", sender.getSentCount())
+                .withDetail("hitsDropped", sender.getDroppedCount())
+                .withDetail("hitsQueued", sender.getQueuedCount()));
+        return health
+                .withDetail("circuit", state)
+                .withDetail("consecutiveFailures", statsCircuitBreaker.getConsecutiveFailures())
+                .withDetail("rejectedByCircuit", statsCircuitBreaker.getRejectedCount())
+                .withDetail("bulkheadActive", statsBulkhead.getActiveCount())
+                .withDetail("bulkheadQueued", statsBulkhead.getQueuedCount())
+                .withDetail("rejectedByBulkhead", statsBulkhead.getRejectedCount())
+                .withDetail("timedOut", statsBulkhead.getTimedOutCount())
+                .build();
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.ewm.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import ru.practicum.stats.client.AsyncStatsClient;
+
+import java.nio.file.Path;
+
+/**
+ * Stats client settings ({@code stats.*}); see {@link StatsClientConfig} for how they are used.
+ *
+ * @param mode             {@code http} to call the stats server, {@code embedded} to run the stats engine in-process.
+ * @param connectTimeoutMs connect timeout of the HTTP transport.
+ * @param readTimeoutMs    read timeout of the HTTP transport.
+ */
+@ConfigurationProperties("stats")
+public record StatsProperties(@DefaultValue("http") String mode,
+                              @DefaultValue Embedded embedded,
+                              @DefaultValue("2000") long connectTimeoutMs,
+                              @DefaultValue("3000") long readTimeoutMs,
+                              @DefaultValue Transport transport,
+                              @DefaultValue Hits hits,
+                              @DefaultValue Resilience resilience,
+                              @DefaultValue Cache cache) {
+
+    public record Embedded(@DefaultValue Datasource datasource) {
+    }
+
+    public record Datasource(@DefaultValue("") String url,
+                             @DefaultValue("") String username,
+                             @DefaultValue("") String password,
+                             @DefaultValue("10") int poolSize) {
+    }
+
+    /**
+     * @param type  {@code jdk} for the pooled {@code java.net.http.HttpClient}, anything else ({@code simple}) for
+     *              the default one, which is faster in {@code JdkHttpTransportBenchmark}.
+     * @param http2 whether the {@code jdk} transport offers the h2c upgrade.
+     */
+    public record Transport(@DefaultValue("simple") String type,
+                            @DefaultValue("false") boolean http2,
+                            @DefaultValue("true") boolean gzip) {
+    }
+
+    /**
+     * @param mode {@code async} to send hits in the background, {@code sync} to send them inline.
+     */
+    public record Hits(@DefaultValue("async") String mode,
+                       @DefaultValue("10000") int queueCapacity,
+                       @DefaultValue("200") int batchSize,
+                       @DefaultValue("500") long flushIntervalMs,
+                       @DefaultValue("DROP_OLDEST") AsyncStatsClient.OverflowPolicy overflowPolicy,
+                       @DefaultValue Spool spool) {
+    }
+
+    public record Spool(@DefaultValue("true") boolean enabled,
+                        @DefaultValue("data/stats-spool") Path dir,
+                        @DefaultValue("4194304") long segmentBytes,
+                        @DefaultValue("268435456") long maxBytes,
+                        @DefaultValue("60000") long maxBackoffMs) {
+    }
+
+    public record Resilience(@DefaultValue Breaker breaker, @DefaultValue Bulkhead bulkhead) {
+    }
+
+    public record Breaker(@DefaultValue("5") int failureThreshold,
+                          @DefaultValue("10000") long openMs) {
+    }
+
+    public record Bulkhead(@DefaultValue("8") int maxConcurrent,
+                           @DefaultValue("16") int queueSize,
+                           @DefaultValue("2000") long timeoutMs) {
+    }
+
+    public record Cache(@DefaultValue("true") boolean enabled,
+                        @DefaultValue("5000") long ttlMs,
+                        @DefaultValue("30000") long staleMs,
+                        @DefaultValue("50000") int maxEntries,
+                        @DefaultValue("60") long keyBucketSeconds) {
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -26,9 +27,12 @@ public class EventAdminController {
 
     private final EventService service;
 
-    /** Returns events by filters (users, states, categories, date range) with offset pagination. */
+    /**
+     * Returns events by filters (users, states, categories, date range) with offset pagination,
+     * or keyset pagination when {@code after} is given (empty for the first page; next cursor in {@code X-Next-Cursor}).
+     */
     @GetMapping
-    public Collection<EventFullDto> searchAdmin(
+    public ResponseEntity<? extends Collection<EventFullDto>> searchAdmin(
             @RequestParam(required = false) List<Long> users,
             @RequestParam(required = false) List<String> states,
             @RequestParam(required = false) List<Long> categories,
@@ -37,7 +41,8 @@ public class EventAdminController {
             @RequestParam(required = false)
             @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime rangeEnd,
             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
-            @RequestParam(defaultValue = "10") @Positive int size
+            @RequestParam(defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String after
     ) {
         AdminEventSearchRequest req = new AdminEventSearchRequest();
         req.setUsers(users);
@@ -47,12 +52,17 @@ public class EventAdminController {
         req.setRangeEnd(rangeEnd);
         req.setFrom(from);
         req.setSize(size);
+        req.setAfter(after);
 
         if (req.getRangeStart() != null && req.getRangeEnd() != null
                 && req.getRangeEnd().isBefore(req.getRangeStart())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "rangeEnd must be after rangeStart");
         }
 
+        if (after != null) {
+            return service.searchAdminAfter(req).toResponse();
+        }
+
         var page = service.searchAdmin(
                 req.getUsers(),
                 req.getStates(),
@@ -63,7 +73,7 @@ public class EventAdminController {
                 req.getSize()
         );
 
-        return page != null ? page.getContent() : List.of();
+        return ResponseEntity.ok(page != null ? page.getContent() : List.of());
     }
 
     /** Publishes or rejects an event by admin action (PUBLISH_EVENT / REJECT_EVENT). */
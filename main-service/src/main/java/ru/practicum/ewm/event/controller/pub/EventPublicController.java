@@ -6,6 +6,7 @@ import jakarta.validation.constraints.PositiveOrZero;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
@@ -25,9 +26,13 @@ public class EventPublicController {
 
     private final EventService service;
 
-    /** Returns a list of published events with filtering and pagination. */
+    /**
+     * Returns a list of published events with filtering and pagination.
+     * With {@code after} (empty for the first page) paging is keyset-based: {@code from} is ignored and the next
+     * page's cursor is returned in the {@code X-Next-Cursor} header.
+     */
     @GetMapping
-    public List<EventShortDto> search(
+    public ResponseEntity<List<EventShortDto>> search(
             @RequestParam(required = false) String text,
             @RequestParam(required = false) List<Long> categories,
             @RequestParam(required = false) Boolean paid,
@@ -39,6 +44,7 @@ public class EventPublicController {
             @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "0") @PositiveOrZero int from,
             @RequestParam(defaultValue = "10") @Positive int size,
+            @RequestParam(required = false) String after,
             HttpServletRequest request
     ) {
         PublicEventSearchRequest req = PublicEventSearchRequest.builder()
@@ -51,6 +57,7 @@ public class EventPublicController {
                 .sort(sort)
                 .from(from)
                 .size(size)
+                .after(after)
                 .build();
 
         // Базовая валидация диапазона дат
@@ -59,7 +66,10 @@ public class EventPublicController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "rangeEnd must be after rangeStart");
         }
 
-        return service.searchPublic(req, request).getContent();
+        if (after != null) {
+            return service.searchPublicAfter(req, request).toResponse();
+        }
+        return ResponseEntity.ok(service.searchPublic(req, request).getContent());
     }
 
     /** Returns detailed information about a specific published event. */
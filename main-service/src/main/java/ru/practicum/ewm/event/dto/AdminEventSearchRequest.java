@@ -31,6 +31,9 @@ public class AdminEventSearchRequest {
     @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime rangeEnd;
 
+    /** Keyset cursor from the previous page's {@code X-Next-Cursor} header; empty for the first page. */
+    private String after;
+
     /** Pagination offset (default = 0). */
     private int from = 0;
 
@@ -41,9 +41,15 @@ public class PublicEventSearchRequest {
     @Builder.Default
     private boolean onlyAvailable = false;
 
-    /** Sorting criteria: EVENT_DATE or VIEWS (optional). */
+    /** Sorting criteria: EVENT_DATE, VIEWS or RELEVANCE (with text only) (optional). */
     private String sort;
 
+    /**
+     * Keyset cursor from the previous page's {@code X-Next-Cursor} header; empty for the first page.
+     * When present, {@code from} is ignored and no total count is computed.
+     */
+    private String after;
+
     /** Pagination offset (default: 0). */
     @Builder.Default
     private int from = 0;
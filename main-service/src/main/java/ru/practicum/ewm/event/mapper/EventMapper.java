@@ -6,6 +6,7 @@ import ru.practicum.ewm.category.dto.CategoryDto;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.event.dto.*;
 import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.EventShortView;
 import ru.practicum.ewm.event.model.Location;
 import ru.practicum.ewm.user.dto.UserShortDto;
 import ru.practicum.ewm.user.model.User;
@@ -46,13 +47,23 @@ public final class EventMapper {
                 .build();
     }
 
-    /** Converts Event entity to full DTO with provided views. */
-    public static EventFullDto toFullDto(Event e, long views) {
-        return toFullDto(e, views, 0L);
+    /** Converts a list projection to short DTO with provided views. */
+    public static EventShortDto toShortDto(EventShortView v, long views) {
+        return EventShortDto.builder()
+                .id(v.id())
+                .annotation(v.annotation())
+                .title(v.title())
+                .category(CategoryDto.builder().id(v.categoryId()).name(v.categoryName()).build())
+                .initiator(UserShortDto.builder().id(v.initiatorId()).name(v.initiatorName()).build())
+                .paid(v.paid())
+                .eventDate(v.eventDate())
+                .confirmedRequests(v.confirmedRequests())
+                .views(views)
+                .build();
     }
 
-    /** Converts Event entity to full DTO with provided views and commentCount. */
-    public static EventFullDto toFullDto(Event e, long views, long commentCount) {
+    /** Converts Event entity to full DTO with provided views; commentCount comes from the event's counter. */
+    public static EventFullDto toFullDto(Event e, long views) {
         return EventFullDto.builder()
                 .id(e.getId())
                 .annotation(e.getAnnotation())
@@ -70,7 +81,7 @@ public final class EventMapper {
                 .publishedOn(e.getPublishedOn())
                 .confirmedRequests(e.getConfirmedRequests())
                 .views(views)
-                .commentCount(commentCount)
+                .commentCount(e.getPublishedComments())
                 .build();
     }
 
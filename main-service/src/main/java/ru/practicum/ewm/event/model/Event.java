@@ -2,6 +2,7 @@ package ru.practicum.ewm.event.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.user.model.User;
 
@@ -64,4 +65,18 @@ public class Event {
 
     @Column(name = "confirmed_requests", nullable = false)
     private int confirmedRequests;
+
+    /** Unique views since publication, copied from the stats server by {@code EventViewsSync}; read-only here. */
+    @ColumnDefault("0")
+    @Column(nullable = false, insertable = false, updatable = false)
+    private long views;
+
+    /** When {@link #views} was last refreshed; {@code null} until the first sync. */
+    @Column(name = "views_synced_at", insertable = false, updatable = false)
+    private LocalDateTime viewsSyncedAt;
+
+    /** Number of published comments, kept by {@code CommentServiceImpl} with atomic increments; read-only here. */
+    @ColumnDefault("0")
+    @Column(name = "published_comments", nullable = false, insertable = false, updatable = false)
+    private long publishedComments;
 }
\ No newline at end of file
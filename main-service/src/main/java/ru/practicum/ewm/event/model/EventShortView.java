@@ -0,0 +1,21 @@
+package ru.practicum.ewm.event.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Columns of {@code EventShortDto}, read with category and initiator names in one joined SELECT.
+ * List queries return it instead of {@link Event} so the description and lazy associations are never loaded.
+ * {@code views} is the synced counter, used when the live stats lookup misses its deadline.
+ */
+public record EventShortView(Long id,
+                             String annotation,
+                             String title,
+                             Long categoryId,
+                             String categoryName,
+                             Long initiatorId,
+                             String initiatorName,
+                             boolean paid,
+                             LocalDateTime eventDate,
+                             int confirmedRequests,
+                             long views) {
+}
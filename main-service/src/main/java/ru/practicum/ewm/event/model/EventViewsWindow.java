@@ -0,0 +1,15 @@
+package ru.practicum.ewm.event.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns the view-count sync needs: an event id and the start of its views window.
+ * Read instead of {@link Event} so a sync batch does not load descriptions or associations.
+ */
+public record EventViewsWindow(long id, LocalDateTime publishedOn, LocalDateTime createdOn) {
+
+    /** Views are counted from publication; events published before it was recorded fall back to creation. */
+    public LocalDateTime start() {
+        return publishedOn != null ? publishedOn : createdOn;
+    }
+}
@@ -2,33 +2,38 @@ package ru.practicum.ewm.event.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.EventShortView;
 import ru.practicum.ewm.event.model.EventState;
+import ru.practicum.ewm.event.model.EventViewsWindow;
+import ru.practicum.ewm.event.search.EventIndexEntry;
 
 import java.time.LocalDateTime;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * JPA repository for events.
  * Handles both public and admin-level event search with dynamic filters.
  */
-public interface EventRepository extends JpaRepository<Event, Long> {
+public interface EventRepository extends JpaRepository<Event, Long>, EventSearchRepository {
 
-    /** Returns all events created by the given initiator. */
-    Page<Event> findAllByInitiatorId(Long initiatorId, Pageable pageable);
-
-    /** Returns a single event by ID if it matches the required state. */
-    Optional<Event> findByIdAndState(Long eventId, EventState state);
-
-    /**
-     * Public search for published events when categories filter is NOT provided.
-     */
-    @Query("""
-        SELECT e
+    /** JPQL head of list queries: short-DTO columns plus category and initiator names, in one joined SELECT. */
+    String SHORT_VIEW_SELECT = """
+        SELECT new ru.practicum.ewm.event.model.EventShortView(
+                   e.id, e.annotation, e.title, c.id, c.name, u.id, u.name, e.paid, e.eventDate, e.confirmedRequests,
+                   e.views)
         FROM Event e
+        JOIN e.category c
+        JOIN e.initiator u
+        """;
+
+    /** Filters of the public search without a category filter ({@code text} is a substring, empty for none). */
+    String PUBLIC_FILTER = """
         WHERE e.state = ru.practicum.ewm.event.model.EventState.PUBLISHED
           AND (
                  :text = ''
@@ -38,44 +43,63 @@ public interface EventRepository extends JpaRepository<Event, Long> {
           AND ( :paidIsNull = true OR e.paid = :paid )
           AND e.eventDate >= :start
           AND ( :endDateIsNull = true OR e.eventDate <= :endDate )
-        """)
-    Page<Event> searchPublicNoCats(@Param("text") String text,
-                                   @Param("paid") Boolean paid,
-                                   @Param("paidIsNull") boolean paidIsNull,
-                                   @Param("start") LocalDateTime start,
-                                   @Param("endDate") LocalDateTime endDate,
-                                   @Param("endDateIsNull") boolean endDateIsNull,
-                                   Pageable pageable);
+          AND ( :onlyAvailable = false
+              OR e.participantLimit = 0
+              OR e.confirmedRequests < e.participantLimit )
+        """;
+
+    /** Returns the events created by the given initiator as list projections; no total, so no count query. */
+    @Query(SHORT_VIEW_SELECT + " WHERE e.initiator.id = :initiatorId")
+    Slice<EventShortView> findShortByInitiatorId(@Param("initiatorId") Long initiatorId, Pageable pageable);
+
+    /** List projections of the given events, in no particular order. */
+    @Query(SHORT_VIEW_SELECT + " WHERE e.id IN :ids")
+    List<EventShortView> findShortByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Returns a single event by ID if it matches the required state, with category and initiator, as the public
+     * read maps it outside a transaction.
+     */
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    Optional<Event> findByIdAndState(Long eventId, EventState state);
+
+    /**
+     * Public search for published events when categories filter is NOT provided.
+     * {@code onlyAvailable} keeps events with free participant slots (no limit, or fewer confirmed than the limit).
+     * Used without {@code text}; text queries go through {@link #searchPublicText}.
+     */
+    @Query(value = SHORT_VIEW_SELECT + PUBLIC_FILTER,
+            countQuery = "SELECT COUNT(e) FROM Event e " + PUBLIC_FILTER)
+    Page<EventShortView> searchPublicNoCats(@Param("text") String text,
+                                            @Param("paid") Boolean paid,
+                                            @Param("paidIsNull") boolean paidIsNull,
+                                            @Param("start") LocalDateTime start,
+                                            @Param("endDate") LocalDateTime endDate,
+                                            @Param("endDateIsNull") boolean endDateIsNull,
+                                            @Param("onlyAvailable") boolean onlyAvailable,
+                                            Pageable pageable);
 
     /**
      * Public search for published events when categories filter IS provided.
      */
-    @Query("""
-        SELECT e
-        FROM Event e
-        WHERE e.state = ru.practicum.ewm.event.model.EventState.PUBLISHED
-          AND (
-                 :text = ''
-              OR LOWER(e.annotation)  LIKE CONCAT('%', LOWER(:text), '%')
-              OR LOWER(e.description) LIKE CONCAT('%', LOWER(:text), '%')
-          )
-          AND e.category.id IN :categories
-          AND ( :paidIsNull = true OR e.paid = :paid )
-          AND e.eventDate >= :start
-          AND ( :endDateIsNull = true OR e.eventDate <= :endDate )
-        """)
-    Page<Event> searchPublicWithCats(@Param("text") String text,
-                                     @Param("categories") Collection<Long> categories,
-                                     @Param("paid") Boolean paid,
-                                     @Param("paidIsNull") boolean paidIsNull,
-                                     @Param("start") LocalDateTime start,
-                                     @Param("endDate") LocalDateTime endDate,
-                                     @Param("endDateIsNull") boolean endDateIsNull,
-                                     Pageable pageable);
+    @Query(value = SHORT_VIEW_SELECT + PUBLIC_FILTER + " AND e.category.id IN :categories",
+            countQuery = "SELECT COUNT(e) FROM Event e " + PUBLIC_FILTER + " AND e.category.id IN :categories")
+    Page<EventShortView> searchPublicWithCats(@Param("text") String text,
+                                              @Param("categories") Collection<Long> categories,
+                                              @Param("paid") Boolean paid,
+                                              @Param("paidIsNull") boolean paidIsNull,
+                                              @Param("start") LocalDateTime start,
+                                              @Param("endDate") LocalDateTime endDate,
+                                              @Param("endDateIsNull") boolean endDateIsNull,
+                                              @Param("onlyAvailable") boolean onlyAvailable,
+                                              Pageable pageable);
 
     /**
      * Admin search: supports filtering by user IDs, event states, categories and date range.
+     * Category and initiator are fetched with the events, as the full DTO needs both. A {@link Slice}: the admin API
+     * returns no total, so no count query runs.
      */
+    @EntityGraph(attributePaths = {"category", "initiator"})
     @Query("""
         SELECT e FROM Event e
         WHERE (:usersIsNull = true OR e.initiator.id IN :users)
@@ -84,7 +108,7 @@ public interface EventRepository extends JpaRepository<Event, Long> {
           AND (:rangeStartIsNull = true OR e.eventDate >= :rangeStart)
           AND (:rangeEndIsNull = true OR e.eventDate <= :rangeEnd)
         """)
-    Page<Event> searchAdmin(@Param("users") Collection<Long> users,
+    Slice<Event> searchAdmin(@Param("users") Collection<Long> users,
                             @Param("usersIsNull") boolean usersIsNull,
                             @Param("states") Collection<EventState> states,
                             @Param("statesIsNull") boolean statesIsNull,
@@ -96,6 +120,81 @@ public interface EventRepository extends JpaRepository<Event, Long> {
                             @Param("rangeEndIsNull") boolean rangeEndIsNull,
                             Pageable pageable);
 
+    /**
+     * Keyset variant of {@link #searchAdmin}: newest first by (createdOn, id), starting after the given position.
+     * Returns a {@link Slice}, so no count query is run.
+     */
+    @EntityGraph(attributePaths = {"category", "initiator"})
+    @Query("""
+        SELECT e FROM Event e
+        WHERE (:usersIsNull = true OR e.initiator.id IN :users)
+          AND (:statesIsNull = true OR e.state IN :states)
+          AND (:categoriesIsNull = true OR e.category.id IN :categories)
+          AND (:rangeStartIsNull = true OR e.eventDate >= :rangeStart)
+          AND (:rangeEndIsNull = true OR e.eventDate <= :rangeEnd)
+          AND (:afterIsNull = true
+               OR e.createdOn < :afterCreatedOn
+               OR (e.createdOn = :afterCreatedOn AND e.id < :afterId))
+        ORDER BY e.createdOn DESC, e.id DESC
+        """)
+    Slice<Event> searchAdminAfter(@Param("users") Collection<Long> users,
+                                  @Param("usersIsNull") boolean usersIsNull,
+                                  @Param("states") Collection<EventState> states,
+                                  @Param("statesIsNull") boolean statesIsNull,
+                                  @Param("categories") Collection<Long> categories,
+                                  @Param("categoriesIsNull") boolean categoriesIsNull,
+                                  @Param("rangeStart") LocalDateTime rangeStart,
+                                  @Param("rangeStartIsNull") boolean rangeStartIsNull,
+                                  @Param("rangeEnd") LocalDateTime rangeEnd,
+                                  @Param("rangeEndIsNull") boolean rangeEndIsNull,
+                                  @Param("afterCreatedOn") LocalDateTime afterCreatedOn,
+                                  @Param("afterId") Long afterId,
+                                  @Param("afterIsNull") boolean afterIsNull,
+                                  Pageable pageable);
+
+    /** Published events with id above {@code afterId}, in id order; feeds the in-memory text index. */
+    @Query("""
+        SELECT new ru.practicum.ewm.event.search.EventIndexEntry(
+                   e.id, e.category.id, e.paid, e.eventDate, e.state, e.title, e.annotation, e.description)
+        FROM Event e
+        WHERE e.state = ru.practicum.ewm.event.model.EventState.PUBLISHED
+          AND e.id > :afterId
+        ORDER BY e.id
+        """)
+    List<EventIndexEntry> findPublishedForIndex(@Param("afterId") long afterId, Pageable pageable);
+
+    /** Published events whose view count was refreshed longest ago, never-synced first. */
+    @Query("""
+        SELECT new ru.practicum.ewm.event.model.EventViewsWindow(e.id, e.publishedOn, e.createdOn)
+        FROM Event e
+        WHERE e.state = ru.practicum.ewm.event.model.EventState.PUBLISHED
+        ORDER BY e.viewsSyncedAt ASC NULLS FIRST, e.id
+        """)
+    List<EventViewsWindow> findStalestViews(Pageable pageable);
+
+    /** Published events among {@code ids}, as the sync's views windows. */
+    @Query("""
+        SELECT new ru.practicum.ewm.event.model.EventViewsWindow(e.id, e.publishedOn, e.createdOn)
+        FROM Event e
+        WHERE e.state = ru.practicum.ewm.event.model.EventState.PUBLISHED AND e.id IN :ids
+        """)
+    List<EventViewsWindow> findViewsWindowsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** When a view count was last refreshed, if ever. */
+    @Query("SELECT MAX(e.viewsSyncedAt) FROM Event e")
+    Optional<LocalDateTime> findLastViewsSync();
+
+    /** Stores a view count from the stats server; {@code views} is read-only for the entity. */
+    @Modifying
+    @Query(value = "UPDATE events SET views = :views, views_synced_at = :syncedAt WHERE id = :id", nativeQuery = true)
+    void updateViews(@Param("id") long id, @Param("views") long views, @Param("syncedAt") LocalDateTime syncedAt);
+
+    /** Adds {@code delta} to the published-comment counter in place, so concurrent moderators never lose updates. */
+    @Modifying
+    @Query(value = "UPDATE events SET published_comments = published_comments + :delta WHERE id = :id",
+            nativeQuery = true)
+    void addPublishedComments(@Param("id") long id, @Param("delta") int delta);
+
     /** Counts how many events belong to the given category. */
     long countByCategoryId(Long categoryId);
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package ru.practicum.ewm.event.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.ewm.common.util.KeysetCursor;
+import ru.practicum.ewm.event.model.EventShortView;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Full-text search over published events, backed by the {@code events.search_vector} column and its GIN index
+ * (see {@code db/ewm-schema.sql}).
+ */
+public interface EventSearchRepository {
+
+    /**
+     * Public search for published events whose annotation or description matches every word of {@code text}
+     * (stemmed, prefix match). Optional filters are skipped when {@code null}; {@code onlyAvailable} keeps events
+     * with free participant slots.
+     *
+     * @param byRelevance order by text rank ({@code ts_rank_cd}); otherwise by event date or synced views when
+     *                    {@code pageable} is sorted by {@code eventDate} or {@code views}, else by id.
+     */
+    Page<EventShortView> searchPublicText(String text,
+                                 Collection<Long> categories,
+                                 Boolean paid,
+                                 LocalDateTime start,
+                                 LocalDateTime end,
+                                 boolean onlyAvailable,
+                                 boolean byRelevance,
+                                 Pageable pageable);
+
+    /**
+     * Keyset page of the public search ordered by (eventDate, id): up to {@code limit} published events after
+     * {@code after} ({@code null} for the first page). An empty {@code text} skips the text condition.
+     */
+    List<EventShortView> searchPublicAfter(String text,
+                                  Collection<Long> categories,
+                                  Boolean paid,
+                                  LocalDateTime start,
+                                  LocalDateTime end,
+                                  boolean onlyAvailable,
+                                  KeysetCursor after,
+                                  int limit);
+}
@@ -0,0 +1,216 @@
+package ru.practicum.ewm.event.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import ru.practicum.ewm.common.util.KeysetCursor;
+import ru.practicum.ewm.event.model.EventShortView;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Native implementation of {@link EventSearchRepository}.
+ * <p>
+ * {@code text} is split into words, each becoming a stemmed prefix term ({@code word:*}) of an AND query, so the
+ * GIN index answers the match instead of scanning annotation and description. Text without any word characters,
+ * or made of stop words only (which {@code to_tsquery} reduces to an empty query that matches nothing), falls back
+ * to the old case-insensitive substring match. Stop-word-only text is only told apart from text without matches when
+ * the full-text query finds nothing, so a search that does find rows costs no extra round trip. Rows are read as {@link EventShortView}s, joined with
+ * category and initiator names in the same statement.
+ */
+public class EventSearchRepositoryImpl implements EventSearchRepository {
+
+    /** Must match the configuration of {@code event_search_vector}, which the trigger fills {@code search_vector} with. */
+    private static final String TS_CONFIG = "russian";
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    /** Caps the tsquery size for pathological inputs. */
+    private static final int MAX_TERMS = 16;
+    private static final String SHORT_VIEW_SELECT = "SELECT e.id, e.annotation, e.title, c.id, c.name, u.id, u.name,"
+            + " e.paid, e.event_date, e.confirmed_requests, e.views"
+            + " FROM events e"
+            + " JOIN categories c ON c.id = e.category_id"
+            + " JOIN users u ON u.id = e.initiator_id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<EventShortView> searchPublicText(String text,
+                                        Collection<Long> categories,
+                                        Boolean paid,
+                                        LocalDateTime start,
+                                        LocalDateTime end,
+                                        boolean onlyAvailable,
+                                        boolean byRelevance,
+                                        Pageable pageable) {
+        String tsQuery = toPrefixQuery(text);
+        Page<EventShortView> page = searchPublicText(text, tsQuery, categories, paid, start, end, onlyAvailable,
+                byRelevance, pageable);
+        if (page.getTotalElements() == 0 && tsQuery != null && isEmptyQuery(tsQuery)) {
+            page = searchPublicText(text, null, categories, paid, start, end, onlyAvailable, byRelevance, pageable);
+        }
+        return page;
+    }
+
+    /** Public text search with {@code tsQuery}, or the substring match when it is {@code null}. */
+    private Page<EventShortView> searchPublicText(String text,
+                                                  String tsQuery,
+                                                  Collection<Long> categories,
+                                                  Boolean paid,
+                                                  LocalDateTime start,
+                                                  LocalDateTime end,
+                                                  boolean onlyAvailable,
+                                                  boolean byRelevance,
+                                                  Pageable pageable) {
+        Map<String, Object> params = new HashMap<>();
+        String where = publicFilter(text, tsQuery, categories, paid, start, end, onlyAvailable, params);
+
+        String orderBy;
+        if (byRelevance && tsQuery != null) {
+            orderBy = " ORDER BY ts_rank_cd(e.search_vector, to_tsquery('" + TS_CONFIG + "', :query)) DESC, e.id";
+        } else if (pageable.getSort().getOrderFor("eventDate") != null) {
+            orderBy = " ORDER BY e.event_date, e.id";
+        } else if (pageable.getSort().getOrderFor("views") != null) {
+            orderBy = " ORDER BY e.views DESC, e.id";
+        } else {
+            orderBy = " ORDER BY e.id";
+        }
+
+        Query select = entityManager.createNativeQuery(SHORT_VIEW_SELECT + where + orderBy);
+        params.forEach(select::setParameter);
+        select.setFirstResult((int) pageable.getOffset());
+        select.setMaxResults(pageable.getPageSize());
+        List<EventShortView> content = toViews(select);
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            Query count = entityManager.createNativeQuery("SELECT COUNT(*) FROM events e" + where);
+            params.forEach(count::setParameter);
+            return ((Number) count.getSingleResult()).longValue();
+        });
+    }
+
+    @Override
+    public List<EventShortView> searchPublicAfter(String text,
+                                         Collection<Long> categories,
+                                         Boolean paid,
+                                         LocalDateTime start,
+                                         LocalDateTime end,
+                                         boolean onlyAvailable,
+                                         KeysetCursor after,
+                                         int limit) {
+        String tsQuery = text.isEmpty() ? null : toPrefixQuery(text);
+        List<EventShortView> views = searchPublicAfter(text, tsQuery, categories, paid, start, end, onlyAvailable,
+                after, limit);
+        if (views.isEmpty() && tsQuery != null && isEmptyQuery(tsQuery)) {
+            views = searchPublicAfter(text, null, categories, paid, start, end, onlyAvailable, after, limit);
+        }
+        return views;
+    }
+
+    /** Keyset page of the public search with {@code tsQuery}, or the substring match when it is {@code null}. */
+    private List<EventShortView> searchPublicAfter(String text,
+                                                   String tsQuery,
+                                                   Collection<Long> categories,
+                                                   Boolean paid,
+                                                   LocalDateTime start,
+                                                   LocalDateTime end,
+                                                   boolean onlyAvailable,
+                                                   KeysetCursor after,
+                                                   int limit) {
+        Map<String, Object> params = new HashMap<>();
+        StringBuilder where = new StringBuilder(publicFilter(text, tsQuery, categories, paid, start, end, onlyAvailable,
+                params));
+        if (after != null) {
+            where.append(" AND (e.event_date, e.id) > (:afterDate, :afterId)");
+            params.put("afterDate", after.at());
+            params.put("afterId", after.id());
+        }
+
+        Query select = entityManager.createNativeQuery(
+                SHORT_VIEW_SELECT + where + " ORDER BY e.event_date, e.id");
+        params.forEach(select::setParameter);
+        select.setMaxResults(limit);
+        return toViews(select);
+    }
+
+    private static List<EventShortView> toViews(Query select) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = select.getResultList();
+        List<EventShortView> views = new ArrayList<>(rows.size());
+        for (Object[] r : rows) {
+            views.add(new EventShortView(((Number) r[0]).longValue(), (String) r[1], (String) r[2],
+                    ((Number) r[3]).longValue(), (String) r[4], ((Number) r[5]).longValue(), (String) r[6],
+                    (Boolean) r[7], toLocalDateTime(r[8]), ((Number) r[9]).intValue(),
+                    ((Number) r[10]).longValue()));
+        }
+        return views;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return (value instanceof Timestamp ts) ? ts.toLocalDateTime() : (LocalDateTime) value;
+    }
+
+    /** {@code WHERE} clause of the public search over {@code events e}; an empty {@code text} matches everything. */
+    private static String publicFilter(String text, String tsQuery, Collection<Long> categories, Boolean paid,
+                                       LocalDateTime start, LocalDateTime end, boolean onlyAvailable,
+                                       Map<String, Object> params) {
+        StringBuilder where = new StringBuilder(" WHERE e.state = 'PUBLISHED'");
+        if (tsQuery != null) {
+            where.append(" AND e.search_vector @@ to_tsquery('" + TS_CONFIG + "', :query)");
+            params.put("query", tsQuery);
+        } else if (!text.isEmpty()) {
+            where.append(" AND (LOWER(e.annotation) LIKE :like OR LOWER(e.description) LIKE :like)");
+            params.put("like", "%" + text.toLowerCase(Locale.ROOT) + "%");
+        }
+        if (categories != null) {
+            where.append(" AND e.category_id IN (:categories)");
+            params.put("categories", categories);
+        }
+        if (paid != null) {
+            where.append(" AND e.paid = :paid");
+            params.put("paid", paid);
+        }
+        where.append(" AND e.event_date >= :start");
+        params.put("start", start);
+        if (end != null) {
+            where.append(" AND e.event_date <= :end");
+            params.put("end", end);
+        }
+        if (onlyAvailable) {
+            // Same predicate as the partial index ix_events_published_available.
+            where.append(" AND (e.participant_limit = 0 OR e.confirmed_requests < e.participant_limit)");
+        }
+        return where.toString();
+    }
+
+    /** Whether {@code to_tsquery} reduces {@code tsQuery} to an empty query, i.e. it has stop words only. */
+    private boolean isEmptyQuery(String tsQuery) {
+        Number nodes = (Number) entityManager
+                .createNativeQuery("SELECT numnode(to_tsquery('" + TS_CONFIG + "', :query))")
+                .setParameter("query", tsQuery)
+                .getSingleResult();
+        return nodes.intValue() == 0;
+    }
+
+    /** {@code "Jazz  concerts!"} → {@code "jazz:* & concerts:*"}; {@code null} when there are no words. */
+    static String toPrefixQuery(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.isEmpty()) continue;
+            terms.add(word + ":*");
+            if (terms.size() == MAX_TERMS) break;
+        }
+        return terms.isEmpty() ? null : String.join(" & ", terms);
+    }
+}
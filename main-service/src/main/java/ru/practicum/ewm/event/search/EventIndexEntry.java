@@ -0,0 +1,25 @@
+package ru.practicum.ewm.event.search;
+
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.EventState;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the event fields {@link EventTextIndex} needs.
+ * Loaded by projection on startup and published by the service after an admin update.
+ */
+public record EventIndexEntry(long id,
+                              long categoryId,
+                              boolean paid,
+                              LocalDateTime eventDate,
+                              EventState state,
+                              String title,
+                              String annotation,
+                              String description) {
+
+    public static EventIndexEntry of(Event event) {
+        return new EventIndexEntry(event.getId(), event.getCategory().getId(), event.isPaid(), event.getEventDate(),
+                event.getState(), event.getTitle(), event.getAnnotation(), event.getDescription());
+    }
+}
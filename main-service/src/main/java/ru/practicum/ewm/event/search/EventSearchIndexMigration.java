@@ -0,0 +1,103 @@
+package ru.practicum.ewm.event.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Online part of the {@code events.search_vector} migration (see {@code db/ewm-schema.sql}), and online build of the
+ * other {@code events} indexes, which a plain {@code CREATE INDEX} in the schema script would build while blocking
+ * every write to the table.
+ * <p>
+ * Once the application is ready, on a background thread so that it does not hold back readiness and the instance
+ * takes traffic during the migration, builds the list indexes ({@link #LIST_INDEXES}), then fills {@code search_vector} of rows written before the trigger existed, in id
+ * ranges of {@code events.search.migration.batch-size} rows, each range its own statement and transaction, so
+ * writers are held up by row locks of one range at most. Then builds the GIN index with
+ * {@code CREATE INDEX CONCURRENTLY}, which does not block writes, like every index here; an invalid index left by an
+ * interrupted build is dropped and rebuilt. All steps are no-ops once done. Until the backfill finishes, text search
+ * misses the rows not filled in yet; until an index exists, the queries it serves scan.
+ */
+@Slf4j
+@Component
+public class EventSearchIndexMigration {
+
+    private static final String SEARCH_INDEX = "ix_events_search_vector";
+
+    /** Index name to definition, in build order. */
+    private static final Map<String, String> LIST_INDEXES = new LinkedHashMap<>();
+
+    static {
+        // Keyset pagination: public search walks published events by (event_date, id), admin search by
+        // (created_on, id) desc.
+        LIST_INDEXES.put("ix_events_published_event_date_id", "ON events (event_date, id) WHERE state = 'PUBLISHED'");
+        LIST_INDEXES.put("ix_events_created_on_id", "ON events (created_on DESC, id DESC)");
+        // onlyAvailable: published events with free participant slots; the predicate matches the search queries.
+        LIST_INDEXES.put("ix_events_published_available", "ON events (event_date, id)"
+                + " WHERE state = 'PUBLISHED' AND (participant_limit = 0 OR confirmed_requests < participant_limit)");
+        // sort=VIEWS orders published events by the synced view count; the sync walks events by views_synced_at.
+        LIST_INDEXES.put("ix_events_published_views", "ON events (views DESC, id) WHERE state = 'PUBLISHED'");
+        LIST_INDEXES.put("ix_events_published_views_synced_at",
+                "ON events (views_synced_at NULLS FIRST, id) WHERE state = 'PUBLISHED'");
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public EventSearchIndexMigration(JdbcTemplate jdbcTemplate,
+                                     @Value("${events.search.migration.batch-size:5000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMigration() {
+        Thread.ofPlatform().name("search-index-migration").daemon().start(this::migrate);
+    }
+
+    void migrate() {
+        try {
+            LIST_INDEXES.forEach(this::buildIndex);
+            backfill();
+            buildIndex(SEARCH_INDEX, "ON events USING GIN (search_vector)");
+        } catch (DataAccessException ex) {
+            log.warn("Event search index migration did not complete, retrying on next start: {}", ex.getMessage());
+        }
+    }
+
+    private void backfill() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM events WHERE search_vector IS NULL",
+                Long.class);
+        if (maxId == null) return;
+
+        long started = System.nanoTime();
+        long filled = 0;
+        for (long from = 0; from < maxId; from += batchSize) {
+            filled += jdbcTemplate.update("UPDATE events"
+                    + " SET search_vector = event_search_vector(annotation, description)"
+                    + " WHERE id > ? AND id <= ? AND search_vector IS NULL", from, from + batchSize);
+        }
+        log.info("Filled search vectors of {} events in {} ms", filled, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void buildIndex(String index, String definition) {
+        Boolean valid = jdbcTemplate.query("SELECT i.indisvalid FROM pg_index i"
+                        + " JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname = ?",
+                rs -> rs.next() ? rs.getBoolean(1) : null, index);
+        if (Boolean.TRUE.equals(valid)) return;
+        if (valid != null) {
+            log.warn("Dropping invalid index {} left by an interrupted build", index);
+            jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index);
+        }
+
+        long started = System.nanoTime();
+        jdbcTemplate.execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index + " " + definition);
+        log.info("Built index {} in {} ms", index, (System.nanoTime() - started) / 1_000_000);
+    }
+}
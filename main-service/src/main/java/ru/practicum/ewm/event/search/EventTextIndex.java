@@ -0,0 +1,309 @@
+package ru.practicum.ewm.event.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.ewm.event.model.EventState;
+import ru.practicum.ewm.event.repository.EventRepository;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * In-process inverted index over title, annotation and description of {@code PUBLISHED} events
+ * ({@code events.search.index.enabled=true}).
+ * <p>
+ * Every indexed event gets a dense doc number; each lowercased token maps to a sorted {@code int[]} of doc numbers
+ * with a parallel {@code int[]} of field weights. A query matches docs containing, for every query word, some token
+ * starting with it; the category, paid and date filters are checked against primitive per-doc columns, so only the
+ * final page of event ids has to be loaded from the database.
+ * <p>
+ * The index is built when the application is ready and then follows admin updates after they commit.
+ * It is local to this instance: updates handled by other instances are not seen until restart.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "events.search.index.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class EventTextIndex {
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    /** Caps the number of query words for pathological inputs. */
+    private static final int MAX_TERMS = 16;
+    private static final int TITLE_WEIGHT = 4;
+    private static final int ANNOTATION_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int LOAD_BATCH = 1000;
+
+    private final EventRepository eventRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+    private final Map<Long, Integer> docByEventId = new HashMap<>();
+    private final BitSet paid = new BitSet();
+    private long[] eventIds = new long[1024];
+    private long[] categoryIds = new long[1024];
+    private long[] eventDates = new long[1024];
+    /** Tokens of each doc, to remove it from its postings on update. */
+    private String[][] docTokens = new String[1024][];
+    private int docCount;
+
+    /** Updates committed while the initial build runs; replayed on top of it. */
+    private final Queue<EventIndexEntry> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean building = true;
+
+    /** Until the initial build completes, searches return empty and callers use the database. */
+    public boolean isReady() {
+        return !building;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        long started = System.nanoTime();
+        long afterId = 0;
+        int loaded = 0;
+        while (true) {
+            List<EventIndexEntry> batch = eventRepository.findPublishedForIndex(afterId, PageRequest.of(0, LOAD_BATCH));
+            if (batch.isEmpty()) break;
+            lock.writeLock().lock();
+            try {
+                batch.forEach(this::put);
+            } finally {
+                lock.writeLock().unlock();
+            }
+            loaded += batch.size();
+            afterId = batch.get(batch.size() - 1).id();
+        }
+        int tokens;
+        lock.writeLock().lock();
+        try {
+            building = false;
+            for (EventIndexEntry entry; (entry = pending.poll()) != null; ) {
+                apply(entry);
+            }
+            tokens = postings.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Indexed {} published events ({} tokens) in {} ms",
+                loaded, tokens, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Applies an admin update once its transaction has committed. */
+    @TransactionalEventListener
+    public void onEventUpdated(EventIndexEntry entry) {
+        if (building) {
+            pending.add(entry);
+            if (building) return;
+            // The build finished in between and may have missed the entry; applying it twice is harmless.
+        }
+        lock.writeLock().lock();
+        try {
+            apply(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of matching published events for one page, in result order, with the total match count.
+     * Empty when the index is not ready or {@code text} has no words; callers then query the database.
+     *
+     * @param byRelevance order by summed field weights of matched tokens; otherwise by event date when
+     *                    {@code pageable} is sorted by {@code eventDate}, else by id.
+     */
+    public Optional<Page<Long>> search(String text,
+                                       Collection<Long> categories,
+                                       Boolean paidFilter,
+                                       LocalDateTime start,
+                                       LocalDateTime end,
+                                       boolean byRelevance,
+                                       Pageable pageable) {
+        List<String> words = tokenize(text).stream().distinct().limit(MAX_TERMS).toList();
+        if (building || words.isEmpty()) return Optional.empty();
+        long from = start.toEpochSecond(ZoneOffset.UTC);
+        long to = (end == null) ? Long.MAX_VALUE : end.toEpochSecond(ZoneOffset.UTC);
+
+        lock.readLock().lock();
+        try {
+            BitSet matched = null;
+            for (String word : words) {
+                BitSet docs = new BitSet(docCount);
+                for (Postings p : prefixRange(word)) {
+                    for (int i = 0; i < p.size; i++) docs.set(p.docs[i]);
+                }
+                if (matched == null) {
+                    matched = docs;
+                } else {
+                    matched.and(docs);
+                }
+                if (matched.isEmpty()) break;
+            }
+
+            int[] hits = matched.stream()
+                    .filter(doc -> (categories == null || categories.contains(categoryIds[doc]))
+                            && (paidFilter == null || paid.get(doc) == paidFilter)
+                            && eventDates[doc] >= from && eventDates[doc] <= to)
+                    .toArray();
+
+            Comparator<Integer> order;
+            if (byRelevance) {
+                int[] score = new int[docCount];
+                BitSet hitSet = new BitSet(docCount);
+                for (int doc : hits) hitSet.set(doc);
+                for (String word : words) {
+                    for (Postings p : prefixRange(word)) {
+                        for (int i = 0; i < p.size; i++) {
+                            if (hitSet.get(p.docs[i])) score[p.docs[i]] += p.weights[i];
+                        }
+                    }
+                }
+                order = Comparator.<Integer>comparingInt(doc -> -score[doc]).thenComparingLong(doc -> eventIds[doc]);
+            } else if (pageable.getSort().getOrderFor("eventDate") != null) {
+                order = Comparator.<Integer>comparingLong(doc -> eventDates[doc]).thenComparingLong(doc -> eventIds[doc]);
+            } else {
+                order = Comparator.comparingLong(doc -> eventIds[doc]);
+            }
+            List<Long> page = IntStream.of(hits).boxed()
+                    .sorted(order)
+                    .skip(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .map(doc -> eventIds[doc])
+                    .toList();
+            return Optional.of(new PageImpl<>(page, pageable, hits.length));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Lowercased word tokens of {@code text}, in order, with duplicates. */
+    static List<String> tokenize(String text) {
+        if (text == null) return List.of();
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private Collection<Postings> prefixRange(String prefix) {
+        return postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values();
+    }
+
+    private void apply(EventIndexEntry entry) {
+        if (entry.state() == EventState.PUBLISHED) {
+            put(entry);
+        } else {
+            remove(entry.id());
+        }
+    }
+
+    private void put(EventIndexEntry entry) {
+        Integer existing = docByEventId.get(entry.id());
+        int doc;
+        if (existing != null) {
+            doc = existing;
+            unlink(doc);
+        } else {
+            doc = docCount++;
+            ensureCapacity(docCount);
+            docByEventId.put(entry.id(), doc);
+        }
+        eventIds[doc] = entry.id();
+        categoryIds[doc] = entry.categoryId();
+        eventDates[doc] = entry.eventDate().toEpochSecond(ZoneOffset.UTC);
+        paid.set(doc, entry.paid());
+
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        tokenize(entry.title()).forEach(t -> weights.merge(t, TITLE_WEIGHT, Integer::sum));
+        tokenize(entry.annotation()).forEach(t -> weights.merge(t, ANNOTATION_WEIGHT, Integer::sum));
+        tokenize(entry.description()).forEach(t -> weights.merge(t, DESCRIPTION_WEIGHT, Integer::sum));
+        weights.forEach((token, weight) -> postings.computeIfAbsent(token, t -> new Postings()).add(doc, weight));
+        docTokens[doc] = weights.keySet().toArray(String[]::new);
+    }
+
+    private void remove(long eventId) {
+        Integer doc = docByEventId.get(eventId);
+        if (doc != null) unlink(doc);
+    }
+
+    /** Drops {@code doc} from the postings of its current tokens; removed docs keep their number. */
+    private void unlink(int doc) {
+        String[] tokens = docTokens[doc];
+        if (tokens == null) return;
+        for (String token : tokens) {
+            Postings p = postings.get(token);
+            if (p != null && p.remove(doc) && p.size == 0) postings.remove(token);
+        }
+        docTokens[doc] = null;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size <= eventIds.length) return;
+        int capacity = Math.max(size, eventIds.length * 2);
+        eventIds = Arrays.copyOf(eventIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        eventDates = Arrays.copyOf(eventDates, capacity);
+        docTokens = Arrays.copyOf(docTokens, capacity);
+    }
+
+    /** Sorted doc numbers of one token with the token's field weight in each doc. */
+    private static final class Postings {
+        private int[] docs = new int[4];
+        private int[] weights = new int[4];
+        private int size;
+
+        /** Keeps {@code docs} sorted; new docs usually append at the end. */
+        void add(int doc, int weight) {
+            int pos = (size == 0 || docs[size - 1] < doc) ? size : Arrays.binarySearch(docs, 0, size, doc);
+            if (pos >= 0 && pos < size) {
+                weights[pos] = weight;
+                return;
+            }
+            if (pos < 0) pos = -pos - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                weights = Arrays.copyOf(weights, size * 2);
+            }
+            System.arraycopy(docs, pos, docs, pos + 1, size - pos);
+            System.arraycopy(weights, pos, weights, pos + 1, size - pos);
+            docs[pos] = doc;
+            weights[pos] = weight;
+            size++;
+        }
+
+        boolean remove(int doc) {
+            int pos = Arrays.binarySearch(docs, 0, size, doc);
+            if (pos < 0) return false;
+            System.arraycopy(docs, pos + 1, docs, pos, size - pos - 1);
+            System.arraycopy(weights, pos + 1, weights, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+    }
+}
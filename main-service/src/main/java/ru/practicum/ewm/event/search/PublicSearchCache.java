@@ -0,0 +1,134 @@
+package ru.practicum.ewm.event.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Result cache of the offset-paged public search: canonical request → ids of the page and the total count.
+ * <p>
+ * Only ids are cached; rows are re-read by id and views enriched per request, so names, participant counts
+ * and views stay current. Requests without {@code rangeStart} query from the real now but are keyed by it
+ * {@linkplain #bucket truncated} to {@code events.search.cache.now-bucket-seconds}, so repeated "from now" searches
+ * share an entry. At most {@code events.search.cache.max-entries} are kept, least recently used evicted first.
+ * Admin changes to published events, and confirmations that fill an event, evict the entries that filter on the
+ * affected categories, plus all entries without a category filter, once the change commits; everything else expires
+ * after the TTL.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "events.search.cache.enabled", havingValue = "true", matchIfMissing = true)
+public class PublicSearchCache {
+
+    private final long ttlNanos;
+    private final long nowBucketSeconds;
+    /** Access-ordered, so the eldest entry is the least recently used; guarded by itself. */
+    private final Map<Key, Entry> entries;
+    /** Bumped by every invalidation; a result loaded across one is not stored. */
+    private final AtomicLong generation = new AtomicLong();
+
+    public PublicSearchCache(@Value("${events.search.cache.ttl-ms:10000}") long ttlMs,
+                             @Value("${events.search.cache.max-entries:10000}") int maxEntries,
+                             @Value("${events.search.cache.now-bucket-seconds:60}") long nowBucketSeconds) {
+        this.ttlNanos = ttlMs * 1_000_000L;
+        this.nowBucketSeconds = Math.max(1, nowBucketSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** {@code time} truncated to the bucket; the key start of searches without {@code rangeStart}. */
+    public LocalDateTime bucket(LocalDateTime time) {
+        long seconds = time.toLocalTime().toSecondOfDay();
+        return time.toLocalDate().atStartOfDay().plusSeconds(seconds - seconds % nowBucketSeconds);
+    }
+
+    /** Generation to pass to {@link #put}; read it before running the query. */
+    public long generation() {
+        return generation.get();
+    }
+
+    public Optional<Page<Long>> get(Key key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry == null) return Optional.empty();
+            if (entry.expiresAt() - System.nanoTime() <= 0) {
+                entries.remove(key);
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new PageImpl<>(entry.ids(), key.pageable(), entry.total()));
+    }
+
+    /** Stores a page of ids unless an invalidation happened since {@code loadedAt} was read. */
+    public void put(Key key, long loadedAt, List<Long> ids, long total) {
+        Entry entry = new Entry(List.copyOf(ids), total, System.nanoTime() + ttlNanos);
+        synchronized (entries) {
+            if (generation.get() != loadedAt) return;
+            entries.put(key, entry);
+        }
+    }
+
+    @TransactionalEventListener
+    public void onChange(Invalidation change) {
+        int evicted;
+        synchronized (entries) {
+            generation.incrementAndGet();
+            int before = entries.size();
+            entries.keySet().removeIf(key -> key.categories().isEmpty()
+                    || key.categories().stream().anyMatch(change.categoryIds()::contains));
+            evicted = before - entries.size();
+        }
+        log.debug("Public search cache: evicted {} entries for categories {}", evicted, change.categoryIds());
+    }
+
+    /**
+     * Published after an admin change to a published (or just published) event, for its old and new category, and
+     * when confirmed requests reach an event's participant limit, for its category.
+     */
+    public record Invalidation(Set<Long> categoryIds) {
+    }
+
+    /** Canonical form of a public search: the same filters always produce an equal key. */
+    public record Key(String text,
+                      List<Long> categories,
+                      Boolean paid,
+                      LocalDateTime start,
+                      LocalDateTime end,
+                      boolean onlyAvailable,
+                      boolean byRelevance,
+                      Pageable pageable) {
+
+        public static Key of(String text, Collection<Long> categories, Boolean paid, LocalDateTime start,
+                             LocalDateTime end, boolean onlyAvailable, boolean byRelevance, Pageable pageable) {
+            String canonicalText = (text == null) ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+            List<Long> canonicalCategories = (categories == null) ? List.of()
+                    : categories.stream().filter(Objects::nonNull).distinct().sorted().toList();
+            return new Key(canonicalText, canonicalCategories, paid, start, end, onlyAvailable, byRelevance,
+                    pageable);
+        }
+    }
+
+    private record Entry(List<Long> ids, long total, long expiresAt) {
+    }
+}
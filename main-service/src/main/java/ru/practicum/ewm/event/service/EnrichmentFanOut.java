@@ -0,0 +1,119 @@
+package ru.practicum.ewm.event.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the enrichment branches of public reads (view lookups) on virtual threads, concurrently with the request
+ * thread's database work and bounded by a per-request deadline.
+ * <p>
+ * Each read opens a {@link Scope}: branches are forked into it and joined with a fallback once the deadline
+ * passes. Whatever is still running when the scope closes is abandoned but not interrupted: an interrupt would
+ * turn a healthy but slow stats call into a breaker failure and abort single-flight loads other requests are
+ * waiting on, and the stats client's bulkhead timeout already bounds how long the branch keeps running.
+ * Hit logging is not a read: it is {@linkplain #detach detached} and always runs to completion. At most
+ * {@code events.enrichment.max-detached} detached tasks run at once; past that new ones are refused, so blocking
+ * sends to a stats server that is down cannot pile up threads and sockets.
+ * Branches run outside the caller's transaction and must not touch the database or the servlet request.
+ */
+@Slf4j
+@Component
+public class EnrichmentFanOut {
+
+    private final ExecutorService executor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("enrich-", 0).factory());
+    private final Duration deadline;
+    private final Semaphore detached;
+
+    public EnrichmentFanOut(@Value("${events.enrichment.deadline-ms:500}") long deadlineMs,
+                            @Value("${events.enrichment.max-detached:32}") int maxDetached) {
+        this.deadline = Duration.ofMillis(deadlineMs);
+        this.detached = new Semaphore(maxDetached);
+    }
+
+    /** Starts the fan-out of one request; the deadline runs from now. */
+    public Scope open() {
+        return new Scope(System.nanoTime() + deadline.toNanos());
+    }
+
+    /**
+     * Runs {@code task} on a virtual thread outside any scope: it is never joined, awaited or cancelled. Returns
+     * {@code false} without running it if {@code events.enrichment.max-detached} tasks are already running.
+     */
+    public boolean detach(Runnable task) {
+        if (!detached.tryAcquire()) return false;
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    detached.release();
+                }
+            });
+        } catch (RuntimeException ex) {
+            detached.release();
+            throw ex;
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Branches of one request sharing a single deadline. */
+    public final class Scope implements AutoCloseable {
+
+        private final long deadlineNanos;
+        private final List<Future<?>> forks = new ArrayList<>();
+
+        private Scope(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public <T> Future<T> fork(Callable<T> branch) {
+            Future<T> fork = executor.submit(branch);
+            forks.add(fork);
+            return fork;
+        }
+
+        /** Result of {@code fork}, or {@code fallback} if it failed or is not done by the deadline. */
+        public <T> T join(Future<T> fork, T fallback) {
+            try {
+                return fork.get(Math.max(0L, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException ex) {
+                log.warn("Enrichment branch missed the {} ms deadline, returning partial result", deadline.toMillis());
+                return fallback;
+            } catch (ExecutionException ex) {
+                log.warn("Enrichment branch failed: {}", ex.getCause().getMessage());
+                return fallback;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return fallback;
+            }
+        }
+
+        /** Abandons branches still running without interrupting them; their results are no longer wanted. */
+        @Override
+        public void close() {
+            for (Future<?> fork : forks) {
+                fork.cancel(false);
+            }
+        }
+    }
+}
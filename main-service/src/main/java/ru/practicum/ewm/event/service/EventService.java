@@ -2,6 +2,8 @@ package ru.practicum.ewm.event.service;
 
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import ru.practicum.ewm.common.util.CursorPage;
 import ru.practicum.ewm.event.dto.*;
 
 import java.time.LocalDateTime;
@@ -20,7 +22,7 @@ public interface EventService {
     EventFullDto updateByInitiator(long userId, long eventId, UpdateEventUserRequest dto);
 
     /** Returns events created by a specific user with offset pagination. */
-    Page<EventShortDto> findByInitiator(long userId, int from, int size);
+    Slice<EventShortDto> findByInitiator(long userId, int from, int size);
 
     /** Returns detailed info about a specific event owned by the initiator. */
     EventFullDto getByInitiator(long userId, long eventId);
@@ -43,23 +45,29 @@ public interface EventService {
      */
     Page<EventShortDto> searchPublic(PublicEventSearchRequest req, HttpServletRequest request);
 
+    /** Keyset-paginated public search ordered by (eventDate, id); {@code req.after} is the cursor. */
+    CursorPage<EventShortDto> searchPublicAfter(PublicEventSearchRequest req, HttpServletRequest request);
+
     /** Returns detailed information about a published event (hit logged to stats). */
     EventFullDto getPublicById(long eventId, HttpServletRequest request);
 
     /** Admin search for events using multiple filters (users, states, categories, date range). */
-    Page<EventFullDto> searchAdmin(Collection<Long> users,
-                                   Collection<String> states,
-                                   Collection<Long> categories,
-                                   LocalDateTime rangeStart,
-                                   LocalDateTime rangeEnd,
-                                   int from,
-                                   int size);
+    Slice<EventFullDto> searchAdmin(Collection<Long> users,
+                                    Collection<String> states,
+                                    Collection<Long> categories,
+                                    LocalDateTime rangeStart,
+                                    LocalDateTime rangeEnd,
+                                    int from,
+                                    int size);
 
     /**
      * Admin search for events using a structured request DTO.
      * Replaces multiple parameters with a single object.
      */
-    Page<EventFullDto> searchAdmin(AdminEventSearchRequest req);
+    Slice<EventFullDto> searchAdmin(AdminEventSearchRequest req);
+
+    /** Keyset-paginated admin search, newest first by (createdOn, id); {@code req.after} is the cursor. */
+    CursorPage<EventFullDto> searchAdminAfter(AdminEventSearchRequest req);
 
     /** Updates or moderates an event by an administrator (publish/reject). */
     EventFullDto updateByAdmin(long eventId, UpdateEventAdminRequest dto);
@@ -3,37 +3,49 @@ package ru.practicum.ewm.event.service;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.category.repository.CategoryRepository;
 import ru.practicum.ewm.common.exception.BadRequestException;
 import ru.practicum.ewm.common.exception.ConflictException;
 import ru.practicum.ewm.common.exception.NotFoundException;
+import ru.practicum.ewm.common.util.CursorPage;
+import ru.practicum.ewm.common.util.KeysetCursor;
 import ru.practicum.ewm.common.util.PageUtil;
 import ru.practicum.ewm.event.dto.*;
 import ru.practicum.ewm.event.mapper.EventMapper;
 import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.EventShortView;
 import ru.practicum.ewm.event.model.EventState;
 import ru.practicum.ewm.event.model.StateAction;
 import ru.practicum.ewm.event.repository.EventRepository;
-import ru.practicum.ewm.comments.repository.CommentRepository;
-import ru.practicum.ewm.comments.model.CommentState;
+import ru.practicum.ewm.event.search.EventIndexEntry;
+import ru.practicum.ewm.event.search.EventTextIndex;
+import ru.practicum.ewm.event.search.PublicSearchCache;
 import ru.practicum.ewm.user.model.User;
 import ru.practicum.ewm.user.repository.UserRepository;
+import ru.practicum.stats.client.AsyncStatsClient;
 import ru.practicum.stats.client.StatsClient;
-import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.stats.dto.EndpointHitDto;
 
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
  * Event use-cases: create/update, public search with views, admin moderation.
  * Integrates with the stats service for hits and view counters.
+ * <p>
+ * Public reads run without a surrounding transaction: each repository call takes a connection for its own statement
+ * only, so waiting up to the enrichment deadline for the stats server never holds a pooled connection.
  */
 @Slf4j
 @Service
@@ -41,13 +53,20 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class EventServiceImpl implements EventService {
 
-    private static final Set<String> SORT_ALLOWED = Set.of("EVENT_DATE", "VIEWS");
+    private static final Set<String> SORT_ALLOWED = Set.of("EVENT_DATE", "VIEWS", "RELEVANCE");
 
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
     private final StatsClient statsClient;
-    private final CommentRepository commentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    /** Present with {@code events.search.index.enabled=true}; text queries are then answered in memory. */
+    private final Optional<EventTextIndex> textIndex;
+    /** Present unless {@code events.search.cache.enabled=false}; repeated public searches skip the database. */
+    private final Optional<PublicSearchCache> searchCache;
+    private final EnrichmentFanOut fanOut;
+    /** Present with {@code stats.hits.mode=async}; hits are then only enqueued, which never blocks. */
+    private final Optional<AsyncStatsClient> hitSender;
 
     /**
      * Delegates public event search to existing implementation, using a structured DTO instead of individual params.
@@ -76,7 +95,7 @@ public class EventServiceImpl implements EventService {
      * Delegates admin event search to existing logic, using a structured DTO instead of raw parameters.
      */
     @Override
-    public Page<EventFullDto> searchAdmin(AdminEventSearchRequest req) {
+    public Slice<EventFullDto> searchAdmin(AdminEventSearchRequest req) {
         Collection<Long> users = (req.getUsers() == null || req.getUsers().isEmpty()) ? null : req.getUsers();
         Collection<String> states = (req.getStates() == null || req.getStates().isEmpty()) ? null : req.getStates();
         Collection<Long> categories = (req.getCategories() == null || req.getCategories().isEmpty())
@@ -149,10 +168,10 @@ public class EventServiceImpl implements EventService {
 
     /** List initiator’s events with offset pagination. */
     @Override
-    public Page<EventShortDto> findByInitiator(long userId, int from, int size) {
+    public Slice<EventShortDto> findByInitiator(long userId, int from, int size) {
         getUserOrThrow(userId);
         var pageable = PageUtil.byFromSize(from, size, Sort.by(Sort.Direction.DESC, "createdOn"));
-        return eventRepository.findAllByInitiatorId(userId, pageable)
+        return eventRepository.findShortByInitiatorId(userId, pageable)
                 .map(e -> EventMapper.toShortDto(e, 0L));
     }
 
@@ -163,8 +182,12 @@ public class EventServiceImpl implements EventService {
         return EventMapper.toFullDto(event, 0L);
     }
 
-    /** Public search: filters + pagination + sorting (EVENT_DATE/VIEWS). */
+    /**
+     * Public search: filters + pagination + sorting (EVENT_DATE/VIEWS/RELEVANCE); text goes through full-text search.
+     * When the page's ids come from the cache or the text index, the views lookup runs while the rows load.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Page<EventShortDto> searchPublic(
             String text,
             Collection<Long> categories,
@@ -177,98 +200,154 @@ public class EventServiceImpl implements EventService {
             int size,
             HttpServletRequest request
     ) {
-        String textParam = (text == null || text.isBlank()) ? "" : text.trim();
-        if (sort != null && sort.isBlank()) sort = null;
+        try (EnrichmentFanOut.Scope scope = fanOut.open()) {
+            String textParam = (text == null || text.isBlank()) ? "" : text.trim();
+            if (sort != null && sort.isBlank()) sort = null;
 
-        safeSendHit(request);
+            sendHitDetached(request);
 
-        LocalDateTime start = (rangeStart == null) ? LocalDateTime.now() : rangeStart;
-        LocalDateTime end   = (rangeEnd   == null) ? start : rangeEnd;
-        if (end.isBefore(start)) {
-            throw new BadRequestException("end must be equal to or after start");
-        }
+            LocalDateTime start = (rangeStart == null) ? LocalDateTime.now() : rangeStart;
+            LocalDateTime end   = (rangeEnd   == null) ? start : rangeEnd;
+            if (end.isBefore(start)) {
+                throw new BadRequestException("end must be equal to or after start");
+            }
 
-        if (categories != null && categories.isEmpty()) {
-            categories = null;
-        }
+            if (categories != null && categories.isEmpty()) {
+                categories = null;
+            }
 
-        Sort srt = Sort.unsorted();
-        boolean sortByViews = false;
-        if (sort != null) {
-            String upper = sort.toUpperCase(Locale.ROOT);
-            if (!SORT_ALLOWED.contains(upper)) {
-                throw new BadRequestException("Unsupported sort: " + sort);
+            Sort srt = Sort.unsorted();
+            boolean sortByRelevance = false;
+            if (sort != null) {
+                String upper = sort.toUpperCase(Locale.ROOT);
+                if (!SORT_ALLOWED.contains(upper)) {
+                    throw new BadRequestException("Unsupported sort: " + sort);
+                }
+                if (upper.equals("EVENT_DATE")) {
+                    srt = Sort.by(Sort.Direction.ASC, "eventDate");
+                } else if (upper.equals("RELEVANCE")) {
+                    sortByRelevance = true;
+                } else {
+                    // Synced view counts (EventViewsSync), so the order holds across pages.
+                    srt = Sort.by(Sort.Direction.DESC, "views").and(Sort.by(Sort.Direction.ASC, "id"));
+                }
             }
-            if (upper.equals("EVENT_DATE")) {
-                srt = Sort.by(Sort.Direction.ASC, "eventDate");
+
+            var pageable = PageUtil.byFromSize(from, size, srt);
+
+            LocalDateTime endForDb    = (rangeEnd == null) ? start.plusYears(100) : rangeEnd;
+            LocalDateTime endForStats = (rangeEnd != null) ? rangeEnd : LocalDateTime.now(); // NOTE: 1) intervals for stats service are always 'live'
+
+            final Collection<Long> cats = categories;
+            final boolean byRelevance = sortByRelevance;
+            // Only the key's "now" is bucketed, so repeated searches without rangeStart share an entry
+            // while the query itself never returns events that have already started.
+            LocalDateTime keyStart = (rangeStart == null)
+                    ? searchCache.map(cache -> cache.bucket(start)).orElse(start)
+                    : rangeStart;
+            PublicSearchCache.Key cacheKey = PublicSearchCache.Key.of(textParam, cats, paid, keyStart, rangeEnd,
+                    onlyAvailable, byRelevance, pageable);
+            long cacheGeneration = searchCache.map(PublicSearchCache::generation).orElse(0L);
+            Optional<Page<Long>> cached = searchCache.flatMap(cache -> cache.get(cacheKey));
+            // The text index tracks neither participant counts nor views; such queries stay in the database.
+            Optional<Page<Long>> known = cached.isPresent()
+                    || textParam.isEmpty() || onlyAvailable || srt.getOrderFor("views") != null
+                    ? cached
+                    : textIndex.flatMap(index -> index.search(textParam, cats, paid, start, rangeEnd, byRelevance, pageable));
+
+            Page<EventShortView> page;
+            Future<Map<Long, Long>> views;
+            if (known.isPresent()) {
+                views = forkViews(known.get().getContent(), start, endForStats, scope);
+                page = hydrate(known.get());
             } else {
-                sortByViews = true;
+                page = !textParam.isEmpty()
+                        ? eventRepository.searchPublicText(textParam, categories, paid, start, rangeEnd, onlyAvailable,
+                                sortByRelevance, pageable)
+                        : (categories == null)
+                        ? eventRepository.searchPublicNoCats(textParam, paid, paid == null, start, endForDb, rangeEnd == null,
+                                onlyAvailable, pageable)
+                        : eventRepository.searchPublicWithCats(textParam, categories, paid, paid == null, start, endForDb, rangeEnd == null,
+                                onlyAvailable, pageable);
+                views = forkViews(ids(page.getContent()), start, endForStats, scope);
+            }
+            if (cached.isEmpty()) {
+                List<Long> ids = ids(page.getContent());
+                long total = page.getTotalElements();
+                searchCache.ifPresent(cache -> cache.put(cacheKey, cacheGeneration, ids, total));
             }
-        }
-
-        var pageable = PageUtil.byFromSize(from, size, srt);
-
-        LocalDateTime endForDb    = (rangeEnd == null) ? start.plusYears(100) : rangeEnd;
-        LocalDateTime endForStats = (rangeEnd != null) ? rangeEnd : LocalDateTime.now(); // NOTE: 1) intervals for stats service are always 'live'
-
-        Page<Event> page = (categories == null)
-                ? eventRepository.searchPublicNoCats(textParam, paid, paid == null, start, endForDb, rangeEnd == null, pageable)
-                : eventRepository.searchPublicWithCats(textParam, categories, paid, paid == null, start, endForDb, rangeEnd == null, pageable);
-
-        List<Event> content = Optional.ofNullable(page.getContent()).orElseGet(List::of)
-                .stream()
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
 
-        if (onlyAvailable) {
-            content = content.stream()
-                    .filter(e -> e.getParticipantLimit() == 0
-                            || e.getConfirmedRequests() < e.getParticipantLimit())
-                    .collect(Collectors.toList());
+            List<EventShortDto> mapped = toShortDtos(page.getContent(), scope.join(views, Map.of()));
+            return new PageImpl<>(mapped, pageable, page.getTotalElements());
         }
+    }
 
-        Map<Long, Long> viewsMap = fetchViewsFor(content, start, endForStats);
-
-        if (sortByViews) {
-            content.sort(Comparator.comparingLong((Event e) -> viewsMap.getOrDefault(e.getId(), 0L)).reversed());
-        }
+    /** Keyset public search: same filters as {@link #searchPublic}, ordered by (eventDate, id), no total count. */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CursorPage<EventShortDto> searchPublicAfter(PublicEventSearchRequest req, HttpServletRequest request) {
+        try (EnrichmentFanOut.Scope scope = fanOut.open()) {
+            String text = (req.getText() == null || req.getText().isBlank()) ? "" : req.getText().trim();
+            Collection<Long> categories = (req.getCategories() == null || req.getCategories().isEmpty())
+                    ? null : req.getCategories();
+            String sort = (req.getSort() == null || req.getSort().isBlank())
+                    ? null : req.getSort().toUpperCase(Locale.ROOT);
+            if (sort != null && !SORT_ALLOWED.contains(sort)) {
+                throw new BadRequestException("Unsupported sort: " + req.getSort());
+            }
+            if ("RELEVANCE".equals(sort) || "VIEWS".equals(sort)) {
+                throw new BadRequestException("sort=" + sort + " cannot be combined with after");
+            }
+            KeysetCursor after = KeysetCursor.decode(req.getAfter());
 
-        List<Long> eventIds = content.stream()
-                .map(Event::getId)
-                .filter(Objects::nonNull)
-                .toList();
+            sendHitDetached(request);
 
-        List<Object[]> rows = commentRepository.countByEventIdsAndState(eventIds, CommentState.PUBLISHED);
-        Map<Long, Long> commentCounts = new HashMap<>();
-        for (Object[] row : rows) {
-            commentCounts.put((Long) row[0], (Long) row[1]);
+            LocalDateTime start = (req.getRangeStart() == null) ? LocalDateTime.now() : req.getRangeStart();
+            if (req.getRangeEnd() != null && req.getRangeEnd().isBefore(start)) {
+                throw new BadRequestException("end must be equal to or after start");
+            }
+            LocalDateTime endForStats = (req.getRangeEnd() != null) ? req.getRangeEnd() : LocalDateTime.now();
+
+            int size = req.getSize();
+            List<EventShortView> rows = eventRepository.searchPublicAfter(
+                    text, categories, req.getPaid(), start, req.getRangeEnd(), req.isOnlyAvailable(), after, size + 1);
+            String next = null;
+            if (rows.size() > size) {
+                rows = rows.subList(0, size);
+                EventShortView last = rows.get(size - 1);
+                next = new KeysetCursor(last.eventDate(), last.id()).encode();
+            }
+            Future<Map<Long, Long>> views = forkViews(ids(rows), start, endForStats, scope);
+            return new CursorPage<>(toShortDtos(rows, scope.join(views, Map.of())), next);
         }
-
-        List<EventShortDto> mapped = content.stream()
-                .map(e -> EventMapper.toShortDto(e, viewsMap.getOrDefault(e.getId(), 0L)))
-                .toList();
-
-        return new PageImpl<>(mapped, pageable, page.getTotalElements());
     }
 
-    /** Public read: event must be PUBLISHED. Logs a hit and enriches views. */
+    /**
+     * Public read: event must be PUBLISHED. Logs a hit while the event loads and enriches live views;
+     * if the stats lookup misses the deadline the synced view counter is returned instead. The views window starts
+     * at publication, so the lookup follows the load.
+     */
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public EventFullDto getPublicById(long eventId, HttpServletRequest request) {
-        safeSendHit(request);
-        Event event = eventRepository.findByIdAndState(eventId, EventState.PUBLISHED)
-                .orElseThrow(() -> new NotFoundException("Event not found or not published"));
-
-        LocalDateTime from = Optional.ofNullable(event.getPublishedOn())
-                .orElse(event.getCreatedOn());
-
-        Map<Long, Long> views = fetchViewsFor(List.of(event), from, LocalDateTime.now());
-        long commentCount = commentRepository.countByEvent_IdAndState(eventId, CommentState.PUBLISHED);
-        return EventMapper.toFullDto(event, views.getOrDefault(eventId, 0L), commentCount);
+        try (EnrichmentFanOut.Scope scope = fanOut.open()) {
+            sendHitDetached(request);
+            Event event = eventRepository.findByIdAndState(eventId, EventState.PUBLISHED)
+                    .orElseThrow(() -> new NotFoundException("Event not found or not published"));
+
+            LocalDateTime from = Optional.ofNullable(event.getPublishedOn())
+                    .orElse(event.getCreatedOn());
+
+            LocalDateTime now = LocalDateTime.now();
+            Future<Map<Long, Long>> views = scope.fork(() -> fetchViewsFor(List.of(eventId), from, now));
+            long viewCount = scope.join(views, Map.<Long, Long>of()).getOrDefault(eventId, event.getViews());
+            return EventMapper.toFullDto(event, viewCount);
+        }
     }
 
     /** Admin search with filters and date range validation. */
     @Override
-    public Page<EventFullDto> searchAdmin(
+    public Slice<EventFullDto> searchAdmin(
             Collection<Long> users,
             Collection<String> states,
             Collection<Long> categories,
@@ -288,7 +367,7 @@ public class EventServiceImpl implements EventService {
         Collection<EventState> stateEnums = parseStates(states);
         if (stateEnums != null && stateEnums.isEmpty()) stateEnums = null;
 
-        Page<Event> page = eventRepository.searchAdmin(
+        Slice<Event> page = eventRepository.searchAdmin(
                 users, users == null,
                 stateEnums, stateEnums == null,
                 categories, categories == null,
@@ -298,6 +377,38 @@ public class EventServiceImpl implements EventService {
         return page.map(e -> EventMapper.toFullDto(e, 0L));
     }
 
+    /** Keyset admin search, newest first by (createdOn, id), no total count. */
+    @Override
+    public CursorPage<EventFullDto> searchAdminAfter(AdminEventSearchRequest req) {
+        if (req.getRangeStart() != null && req.getRangeEnd() != null
+                && req.getRangeEnd().isBefore(req.getRangeStart())) {
+            throw new BadRequestException("end must be equal to or after start");
+        }
+        Collection<Long> users = (req.getUsers() == null || req.getUsers().isEmpty()) ? null : req.getUsers();
+        Collection<Long> categories = (req.getCategories() == null || req.getCategories().isEmpty())
+                ? null : req.getCategories();
+        Collection<EventState> stateEnums = parseStates(req.getStates());
+        if (stateEnums != null && stateEnums.isEmpty()) stateEnums = null;
+        KeysetCursor after = KeysetCursor.decode(req.getAfter());
+
+        Slice<Event> slice = eventRepository.searchAdminAfter(
+                users, users == null,
+                stateEnums, stateEnums == null,
+                categories, categories == null,
+                req.getRangeStart(), req.getRangeStart() == null,
+                req.getRangeEnd(), req.getRangeEnd() == null,
+                after == null ? null : after.at(),
+                after == null ? null : after.id(),
+                after == null,
+                PageUtil.byFromSize(0, req.getSize(), null));
+        String next = null;
+        if (slice.hasNext()) {
+            Event last = slice.getContent().get(slice.getNumberOfElements() - 1);
+            next = new KeysetCursor(last.getCreatedOn(), last.getId()).encode();
+        }
+        return new CursorPage<>(slice.map(e -> EventMapper.toFullDto(e, 0L)).getContent(), next);
+    }
+
     /** Admin patch + moderation. Supports PUBLISH_EVENT / REJECT_EVENT. */
     @Override
     @Transactional
@@ -310,6 +421,8 @@ public class EventServiceImpl implements EventService {
         }
 
         Category newCategory = (dto.getCategory() != null) ? getCategoryOrThrow(dto.getCategory()) : null;
+        boolean wasPublished = event.getState() == EventState.PUBLISHED;
+        Long oldCategoryId = (event.getCategory() != null) ? event.getCategory().getId() : null;
         EventMapper.applyAdminPatch(event, dto, newCategory);
 
         if (dto.getEventDate() != null) {
@@ -339,66 +452,97 @@ public class EventServiceImpl implements EventService {
         }
 
         Event saved = eventRepository.save(event);
+        eventPublisher.publishEvent(EventIndexEntry.of(saved));
+        if (wasPublished || saved.getState() == EventState.PUBLISHED) {
+            Set<Long> categoryIds = new HashSet<>();
+            if (oldCategoryId != null) categoryIds.add(oldCategoryId);
+            if (saved.getCategory() != null) categoryIds.add(saved.getCategory().getId());
+            eventPublisher.publishEvent(new PublicSearchCache.Invalidation(categoryIds));
+        }
         return EventMapper.toFullDto(saved, 0L);
     }
 
     // ===== helpers =====
 
-    private void safeSendHit(HttpServletRequest request) {
-        if (request == null) return;
-        try {
-            statsClient.sendHit(request);
-        } catch (Throwable ex) {
-            log.warn("stats sendHit failed: {}", ex.getMessage());
-        }
+    /** Starts the views lookup of the given events in {@code scope}. */
+    private Future<Map<Long, Long>> forkViews(List<Long> eventIds, LocalDateTime start, LocalDateTime end,
+                                              EnrichmentFanOut.Scope scope) {
+        return scope.fork(() -> fetchViewsFor(eventIds, start, end));
     }
 
-    /** Safe view aggregation */
-    private Map<Long, Long> fetchViewsFor(Collection<Event> events, LocalDateTime start, LocalDateTime end) {
-        if (events == null || events.isEmpty()) return Collections.emptyMap();
+    /** Maps list rows with their live views; rows missing from {@code views} keep their synced counter. */
+    private List<EventShortDto> toShortDtos(List<EventShortView> events, Map<Long, Long> views) {
+        return Optional.ofNullable(events).orElseGet(List::of)
+                .stream()
+                .filter(Objects::nonNull)
+                .map(e -> EventMapper.toShortDto(e, views.getOrDefault(e.id(), e.views())))
+                .toList();
+    }
 
-        List<String> uris = events.stream()
-                .map(Event::getId)
+    private static List<Long> ids(List<EventShortView> events) {
+        return events.stream()
                 .filter(Objects::nonNull)
-                .map(id -> "/events/" + id)
+                .map(EventShortView::id)
                 .toList();
+    }
 
-        try {
-            List<ViewStats> stats = statsClient.getStats(start, end, uris, true);
-            Map<Long, Long> map = new HashMap<>();
-
-            if (stats != null) {
-                for (ViewStats vs : stats) {
-                    if (vs == null || vs.getUri() == null) continue;
-                    Long id = extractId(vs.getUri());
-                    if (id == null) continue;
-                    long hits = (vs.getHits() == null) ? 0L : vs.getHits();
-                    map.merge(id, hits, Long::sum);
-                }
-            }
+    /** Loads the events of an id page from the text index, keeping its order. */
+    private Page<EventShortView> hydrate(Page<Long> ids) {
+        if (ids.isEmpty()) return ids.map(id -> null);
+        Map<Long, EventShortView> byId = eventRepository.findShortByIdIn(ids.getContent()).stream()
+                .collect(Collectors.toMap(EventShortView::id, e -> e));
+        return ids.map(byId::get);
+    }
 
-            for (String u : uris) {
-                Long id = extractId(u);
-                if (id != null) map.putIfAbsent(id, 0L);
+    /**
+     * In async mode enqueues the hit on the request thread. Otherwise captures the hit on the request thread and
+     * sends it on a virtual thread while the request thread queries the database; the send is not part of the read's
+     * scope, so it is never cancelled, and it is dropped if too many sends are already waiting on the stats server.
+     */
+    private void sendHitDetached(HttpServletRequest request) {
+        if (request == null) return;
+        if (hitSender.isPresent()) {
+            try {
+                statsClient.sendHit(request);
+            } catch (RuntimeException ex) {
+                log.warn("stats sendHit failed: {}", ex.getMessage());
             }
-            return map;
-        } catch (Throwable ex) {
-            log.warn("stats getStats failed: {}", ex.getMessage());
-            Map<Long, Long> fallback = new HashMap<>();
-            for (Event e : events) if (e.getId() != null) fallback.put(e.getId(), 0L);
-            return fallback;
+            return;
+        }
+        EndpointHitDto hit;
+        try {
+            hit = statsClient.toHit(request);
+        } catch (RuntimeException ex) {
+            log.warn("stats toHit failed: {}", ex.getMessage());
+            return;
+        }
+        boolean started = fanOut.detach(() -> {
+            try {
+                statsClient.sendHits(List.of(hit));
+            } catch (Throwable ex) {
+                log.warn("stats sendHit failed: {}", ex.getMessage());
+            }
+        });
+        if (!started) {
+            log.warn("stats sendHit dropped: too many hit sends in flight");
         }
     }
 
-    private static Long extractId(String uri) {
-        if (uri == null) return null;
-        String[] p = uri.split("/");
-        if (p.length >= 3 && "events".equals(p[1])) {
-            try {
-                return Long.parseLong(p[2]);
-            } catch (NumberFormatException ignored) { }
+    /** Safe view aggregation; empty on failure so callers fall back to the synced counters. */
+    private Map<Long, Long> fetchViewsFor(Collection<Long> eventIds, LocalDateTime start, LocalDateTime end) {
+        if (eventIds == null || eventIds.isEmpty()) return Collections.emptyMap();
+
+        long[] ids = eventIds.stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .toArray();
+
+        try {
+            return statsClient.getEventViews(ids, start, end, true);
+        } catch (Throwable ex) {
+            log.warn("stats getEventViews failed: {}", ex.getMessage());
+            return Collections.emptyMap();
         }
-        return null;
     }
 
     private Collection<EventState> parseStates(Collection<String> states) {
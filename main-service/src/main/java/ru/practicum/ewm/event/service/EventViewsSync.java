@@ -0,0 +1,144 @@
+package ru.practicum.ewm.event.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.event.model.EventViewsWindow;
+import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.stats.client.StatsClient;
+import ru.practicum.stats.dto.EventViewsRequest;
+import ru.practicum.stats.dto.StatsQueryItem;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps {@code events.views} (unique views since publication) close to the stats server, so {@code sort=VIEWS}
+ * is an indexed ORDER BY over the whole result set.
+ * <p>
+ * Each run is incremental: one {@code GET /stats} since the previous run (minus {@code events.views.sync-lag-ms},
+ * to cover hits still in flight) names the event uris that got hits, and only those published events are
+ * recounted. The watermark starts from the newest {@code views_synced_at}, so a restart resumes rather than
+ * recounting everything. Hits that reach the stats server later than the lag (replayed from a client spool, say)
+ * are picked up by a sweep over the {@code events.views.sync-batch-size} events synced longest ago, so no count
+ * stays stale for longer than about {@code published / sync-batch-size × sync-interval-ms}.
+ * <p>
+ * Recounts go out as batched stats queries of at most {@code events.views.sync-query-size} windows (one window
+ * per event, from its publication to now). A failed query, or an answer that does not cover every window, leaves
+ * the counts and the watermark untouched for the next run rather than overwriting counts with zeros.
+ * <p>
+ * Queries go through the undecorated {@code statsBackendClient}, bounded only by the transport timeouts: a slow
+ * sync must not count as a failure of the circuit breaker or hold bulkhead slots that public reads need.
+ */
+@Slf4j
+@Component
+public class EventViewsSync {
+
+    private final EventRepository eventRepository;
+    private final StatsClient statsClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int querySize;
+    private final Duration lag;
+
+    /** Hits before this are already counted; {@code null} until the first run reads it back. */
+    private LocalDateTime watermark;
+    private boolean watermarkLoaded;
+
+    public EventViewsSync(EventRepository eventRepository,
+                          @Qualifier("statsBackendClient") StatsClient statsClient,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${events.views.sync-batch-size:200}") int batchSize,
+                          @Value("${events.views.sync-query-size:200}") int querySize,
+                          @Value("${events.views.sync-lag-ms:60000}") long lagMs) {
+        this.eventRepository = eventRepository;
+        this.statsClient = statsClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.querySize = querySize;
+        this.lag = Duration.ofMillis(lagMs);
+    }
+
+    @Scheduled(initialDelayString = "${events.views.sync-interval-ms:30000}",
+            fixedDelayString = "${events.views.sync-interval-ms:30000}")
+    public void sync() {
+        if (!watermarkLoaded) {
+            watermark = eventRepository.findLastViewsSync().orElse(null);
+            watermarkLoaded = true;
+        }
+        LocalDateTime now = LocalDateTime.now();
+
+        Map<Long, EventViewsWindow> events = new LinkedHashMap<>();
+        try {
+            if (watermark != null) {
+                Set<Long> active = activeEventIds(watermark.minus(lag), now);
+                if (!active.isEmpty()) {
+                    eventRepository.findViewsWindowsByIdIn(active).forEach(e -> events.put(e.id(), e));
+                }
+            }
+        } catch (Exception ex) {
+            log.warn("views sync skipped: {}", ex.getMessage());
+            return;
+        }
+        int recent = events.size();
+        eventRepository.findStalestViews(PageRequest.of(0, batchSize)).forEach(e -> events.putIfAbsent(e.id(), e));
+        if (events.isEmpty()) {
+            watermark = now;
+            return;
+        }
+
+        List<EventViewsWindow> windows = List.copyOf(events.values());
+        List<StatsQueryItem> items = windows.stream()
+                .map(e -> new StatsQueryItem(EventViewsRequest.EVENT_URI_PREFIX + e.id(), e.start(), now, true))
+                .toList();
+        List<List<ViewStats>> results = new ArrayList<>(items.size());
+        try {
+            for (int from = 0; from < items.size(); from += querySize) {
+                results.addAll(statsClient.queryStats(items.subList(from, Math.min(from + querySize, items.size()))));
+            }
+        } catch (Exception ex) {
+            log.warn("views sync skipped: {}", ex.getMessage());
+            return;
+        }
+        if (results.size() != windows.size()) {
+            log.warn("views sync skipped: {} results for {} events", results.size(), windows.size());
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < windows.size(); i++) {
+                long views = results.get(i).stream().mapToLong(ViewStats::getHits).sum();
+                eventRepository.updateViews(windows.get(i).id(), views, now);
+            }
+        });
+        watermark = now;
+        log.debug("Synced views of {} events ({} with recent hits)", windows.size(), recent);
+    }
+
+    /** Ids of events whose uri got hits in {@code [start, end]}. */
+    private Set<Long> activeEventIds(LocalDateTime start, LocalDateTime end) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (ViewStats stats : statsClient.getStats(start, end, null, false)) {
+            String uri = stats.getUri();
+            if (uri == null || !uri.startsWith(EventViewsRequest.EVENT_URI_PREFIX)) continue;
+            try {
+                ids.add(Long.parseLong(uri.substring(EventViewsRequest.EVENT_URI_PREFIX.length())));
+            } catch (NumberFormatException ignored) {
+                // /events/{id}/something or a malformed id: not an event view
+            }
+        }
+        return ids;
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.ewm.request.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.common.exception.BadRequestException;
@@ -8,6 +9,7 @@ import ru.practicum.ewm.common.exception.ConflictException;
 import ru.practicum.ewm.common.exception.NotFoundException;
 import ru.practicum.ewm.event.model.Event;
 import ru.practicum.ewm.event.repository.EventRepository;
+import ru.practicum.ewm.event.search.PublicSearchCache;
 import ru.practicum.ewm.request.dto.*;
 import ru.practicum.ewm.request.mapper.ParticipationRequestMapper;
 import ru.practicum.ewm.request.model.ParticipationRequest;
@@ -31,6 +33,7 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
     private final ParticipationRequestRepository repository;
     private final UserRepository userRepository;
     private final EventRepository eventRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /** Returns current user's requests to others' events. */
     @Override
@@ -87,8 +90,10 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
 
         // Если автоподтверждение — увеличиваем счётчик подтверждённых.
         if (status == RequestStatus.CONFIRMED) {
-            event.setConfirmedRequests(event.getConfirmedRequests() + 1);
+            int confirmedBefore = event.getConfirmedRequests();
+            event.setConfirmedRequests(confirmedBefore + 1);
             eventRepository.save(event);
+            invalidateSearchIfFilled(event, confirmedBefore);
         }
 
         return ParticipationRequestMapper.toDto(saved);
@@ -138,6 +143,7 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
             throw new NotFoundException("Some requests not found");
         }
 
+        int confirmedBefore = event.getConfirmedRequests();
         List<ParticipationRequest> confirmed = new ArrayList<>();
         List<ParticipationRequest> rejected = new ArrayList<>();
 
@@ -164,10 +170,23 @@ public class ParticipationRequestServiceImpl implements ParticipationRequestServ
 
         repository.saveAll(requests);
         eventRepository.save(event);
+        invalidateSearchIfFilled(event, confirmedBefore);
 
         return EventRequestStatusUpdateResult.builder()
                 .confirmedRequests(confirmed.stream().map(ParticipationRequestMapper::toDto).toList())
                 .rejectedRequests(rejected.stream().map(ParticipationRequestMapper::toDto).toList())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Evicts cached public searches of the event's category once confirmations fill it: its id no longer belongs
+     * in {@code onlyAvailable} results.
+     */
+    private void invalidateSearchIfFilled(Event event, int confirmedBefore) {
+        int limit = event.getParticipantLimit();
+        if (limit > 0 && confirmedBefore < limit && event.getConfirmedRequests() >= limit
+                && event.getCategory() != null) {
+            eventPublisher.publishEvent(new PublicSearchCache.Invalidation(Set.of(event.getCategory().getId())));
+        }
+    }
+}
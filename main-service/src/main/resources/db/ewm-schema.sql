@@ -0,0 +1,46 @@
+-- Runs after Hibernate has created/updated the tables (spring.jpa.defer-datasource-initialization).
+-- Objects Hibernate does not manage; every statement must be idempotent.
+
+-- Full-text search over published events: annotation weighs more than description.
+-- 'russian' also stems Latin-script words with the English stemmer.
+-- A plain column kept by a trigger: adding it only touches the catalog. Existing rows are filled in batches and the
+-- GIN index is built with CREATE INDEX CONCURRENTLY by EventSearchIndexMigration once the application is up.
+CREATE OR REPLACE FUNCTION event_search_vector(annotation TEXT, description TEXT) RETURNS tsvector AS '
+    SELECT setweight(to_tsvector(''russian'', coalesce(annotation, '''')), ''A'') ||
+           setweight(to_tsvector(''russian'', coalesce(description, '''')), ''B'')
+' LANGUAGE sql IMMUTABLE;
+
+CREATE OR REPLACE FUNCTION events_search_vector_update() RETURNS trigger AS '
+BEGIN
+    NEW.search_vector := event_search_vector(NEW.annotation, NEW.description);
+    RETURN NEW;
+END' LANGUAGE plpgsql;
+
+ALTER TABLE events ADD COLUMN IF NOT EXISTS search_vector tsvector;
+
+CREATE OR REPLACE TRIGGER events_search_vector_update
+    BEFORE INSERT OR UPDATE OF annotation, description ON events
+    FOR EACH ROW EXECUTE FUNCTION events_search_vector_update();
+
+-- The keyset, onlyAvailable and sort=VIEWS indexes on events are built with CREATE INDEX CONCURRENTLY by
+-- EventSearchIndexMigration too, so a first deploy does not block writes to events while they build.
+
+-- One-time data migrations of this script; a row marks a migration as done.
+CREATE TABLE IF NOT EXISTS schema_backfill (
+    name VARCHAR(64) PRIMARY KEY
+);
+
+-- published_comments is maintained incrementally by the comment service; this fills it once for databases that had
+-- comments before the column existed.
+DO '
+BEGIN
+    INSERT INTO schema_backfill (name) VALUES (''events.published_comments'') ON CONFLICT DO NOTHING;
+    IF FOUND THEN
+        UPDATE events e SET published_comments = c.cnt
+        FROM (SELECT cm.event_id, COUNT(*) AS cnt
+              FROM comments cm
+              WHERE cm.state = ''PUBLISHED''
+              GROUP BY cm.event_id) c
+        WHERE e.id = c.event_id AND e.published_comments <> c.cnt;
+    END IF;
+END';
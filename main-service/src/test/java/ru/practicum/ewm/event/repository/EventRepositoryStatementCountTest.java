@@ -0,0 +1,138 @@
+package ru.practicum.ewm.event.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import ru.practicum.ewm.category.model.Category;
+import ru.practicum.ewm.event.model.Event;
+import ru.practicum.ewm.event.model.EventShortView;
+import ru.practicum.ewm.event.model.EventState;
+import ru.practicum.ewm.event.model.Location;
+import ru.practicum.ewm.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Event list pages are read in one joined SELECT however many categories and initiators the page spans. The public
+ * search returns a {@link Page}, whose total it caches, so it runs one select plus one count; the initiator and admin
+ * lists return a {@link Slice} without a total and run the select alone. Each event here has its own category and
+ * initiator, so lazy loading of either would show up as extra statements.
+ * <p>
+ * Runs on H2; {@code db/ewm-schema.sql} is PostgreSQL-only and not needed by these queries.
+ */
+@DataJpaTest(properties = {
+        "spring.sql.init.mode=never",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class EventRepositoryStatementCountTest {
+
+    private static final int EVENTS = 6;
+    /** Smaller than {@link #EVENTS}, so the first page is full and a {@link Page} needs the count query. */
+    private static final int PAGE_SIZE = 4;
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private EventRepository eventRepository;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics statistics;
+    private User initiator;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < EVENTS; i++) {
+            Category category = Category.builder().name("category-" + i).build();
+            User user = User.builder().name("user-" + i).email("user" + i + "@example.com").build();
+            entityManager.persist(category);
+            entityManager.persist(user);
+            if (initiator == null) initiator = user;
+            entityManager.persist(event(category, i % 2 == 0 ? initiator : user, i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void publicSearchPageIsOneSelectPlusCount() {
+        Page<EventShortView> page = eventRepository.searchPublicNoCats("", null, true, NOW, null, true, false,
+                PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(EVENTS);
+        assertThat(page.getContent()).extracting(EventShortView::categoryName).doesNotContainNull();
+        assertThat(page.getContent()).extracting(EventShortView::initiatorName).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void publicSearchWithCategoriesPageIsOneSelectPlusCount() {
+        List<Long> categories = entityManager
+                .createQuery("SELECT c.id FROM Category c", Long.class)
+                .getResultList();
+        statistics.clear();
+
+        Page<EventShortView> page = eventRepository.searchPublicWithCats("", categories, null, true, NOW, null, true,
+                false, PageRequest.of(0, PAGE_SIZE));
+
+        assertThat(page.getContent()).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(EVENTS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void initiatorSliceIsOneSelect() {
+        Slice<EventShortView> slice = eventRepository.findShortByInitiatorId(initiator.getId(),
+                PageRequest.of(0, 2));
+
+        assertThat(slice.getContent()).hasSize(2);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(slice.getContent()).extracting(EventShortView::initiatorId).containsOnly(initiator.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void adminSearchSliceIsOneSelect() {
+        Slice<Event> slice = eventRepository.searchAdmin(null, true, List.of(EventState.PUBLISHED), false,
+                null, true, null, true, null, true,
+                PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdOn")));
+
+        assertThat(slice.getContent()).hasSize(PAGE_SIZE);
+        assertThat(slice.hasNext()).isTrue();
+        assertThat(slice.getContent()).extracting(e -> e.getCategory().getName()).doesNotContainNull();
+        assertThat(slice.getContent()).extracting(e -> e.getInitiator().getName()).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private static Event event(Category category, User initiator, int i) {
+        return Event.builder()
+                .annotation("annotation of event " + i)
+                .description("description of event " + i)
+                .title("event " + i)
+                .category(category)
+                .initiator(initiator)
+                .location(new Location(55.75, 37.62))
+                .paid(false)
+                .participantLimit(0)
+                .requestModeration(true)
+                .state(EventState.PUBLISHED)
+                .eventDate(NOW.plusDays(i + 1))
+                .createdOn(NOW.minusDays(1))
+                .publishedOn(NOW.minusHours(1))
+                .build();
+    }
+}
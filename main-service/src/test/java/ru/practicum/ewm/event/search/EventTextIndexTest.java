@@ -0,0 +1,122 @@
+package ru.practicum.ewm.event.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ru.practicum.ewm.event.model.EventState;
+import ru.practicum.ewm.event.repository.EventRepository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Matching, filtering and ordering of the in-memory index, and how it follows admin updates after the build.
+ */
+class EventTextIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+    private static final Pageable FIRST_PAGE = PageRequest.of(0, 10);
+
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final EventTextIndex index = new EventTextIndex(eventRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(eventRepository.findPublishedForIndex(anyLong(), any())).thenReturn(List.of(
+                entry(1, 10, false, 5, "Jazz night", "Live music in the park", "Bring a blanket"),
+                entry(2, 20, true, 2, "Chess club", "Weekly jazz-free games", "Boards provided"),
+                entry(3, 10, true, 9, "Open air cinema", "Classic films", "Jazz soundtrack evening")
+        )).thenReturn(List.of());
+        index.build();
+    }
+
+    @Test
+    void searchReturnsEmptyUntilBuilt() {
+        EventTextIndex unbuilt = new EventTextIndex(eventRepository);
+
+        assertThat(unbuilt.isReady()).isFalse();
+        assertThat(unbuilt.search("jazz", null, null, NOW, null, false, FIRST_PAGE)).isEmpty();
+        assertThat(index.isReady()).isTrue();
+    }
+
+    @Test
+    void everyWordMustMatchSomeTokenByPrefix() {
+        assertThat(ids("jaz")).containsExactly(1L, 2L, 3L);
+        assertThat(ids("jazz mus")).containsExactly(1L);
+        assertThat(ids("JAZZ, Night!")).containsExactly(1L);
+        assertThat(ids("jazz opera")).isEmpty();
+        assertThat(index.search(" -- ", null, null, NOW, null, false, FIRST_PAGE)).isEmpty();
+    }
+
+    @Test
+    void publishAddsEditReplacesTokensAndUnpublishRemoves() {
+        index.onEventUpdated(entry(4, 30, false, 3, "Rock festival", "Guitars", "Loud"));
+        assertThat(ids("rock")).containsExactly(4L);
+
+        index.onEventUpdated(entry(1, 10, false, 5, "Blues night", "Live music in the park", "Bring a blanket"));
+        assertThat(ids("jazz")).containsExactly(2L, 3L);
+        assertThat(ids("blues")).containsExactly(1L);
+
+        index.onEventUpdated(new EventIndexEntry(3, 10, true, NOW.plusDays(9), EventState.CANCELED,
+                "Open air cinema", "Classic films", "Jazz soundtrack evening"));
+        assertThat(ids("jazz")).containsExactly(2L);
+        assertThat(ids("cinema")).isEmpty();
+
+        index.onEventUpdated(entry(3, 10, true, 9, "Open air cinema", "Classic films", "Jazz soundtrack evening"));
+        assertThat(ids("cinema")).containsExactly(3L);
+    }
+
+    @Test
+    void filtersByCategoryPaidAndDateRange() {
+        assertThat(ids("jazz", List.of(10L), null, NOW, null)).containsExactly(1L, 3L);
+        assertThat(ids("jazz", null, true, NOW, null)).containsExactly(2L, 3L);
+        assertThat(ids("jazz", List.of(10L), false, NOW, null)).containsExactly(1L);
+        assertThat(ids("jazz", null, null, NOW.plusDays(3), NOW.plusDays(6))).containsExactly(1L);
+        assertThat(ids("jazz", null, null, NOW.plusDays(10), null)).isEmpty();
+    }
+
+    @Test
+    void relevanceRanksTitleOverAnnotationOverDescription() {
+        Page<Long> page = index.search("jazz", null, null, NOW, null, true, FIRST_PAGE).orElseThrow();
+
+        assertThat(page.getContent()).containsExactly(1L, 2L, 3L);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test
+    void ordersByEventDateWhenSortedAndPagesWithTotal() {
+        Pageable byDate = PageRequest.of(0, 2, Sort.by("eventDate"));
+
+        Page<Long> first = index.search("jazz", null, null, NOW, null, false, byDate).orElseThrow();
+        Page<Long> second = index.search("jazz", null, null, NOW, null, false, byDate.next()).orElseThrow();
+
+        assertThat(first.getContent()).containsExactly(2L, 1L);
+        assertThat(second.getContent()).containsExactly(3L);
+        assertThat(second.getTotalElements()).isEqualTo(3);
+    }
+
+    private List<Long> ids(String text) {
+        return ids(text, null, null, NOW, null);
+    }
+
+    private List<Long> ids(String text, Collection<Long> categories, Boolean paid,
+                           LocalDateTime start, LocalDateTime end) {
+        return index.search(text, categories, paid, start, end, false, FIRST_PAGE).orElseThrow().getContent();
+    }
+
+    private static EventIndexEntry entry(long id, long categoryId, boolean paid, int daysAhead,
+                                         String title, String annotation, String description) {
+        return new EventIndexEntry(id, categoryId, paid, NOW.plusDays(daysAhead), EventState.PUBLISHED,
+                title, annotation, description);
+    }
+}
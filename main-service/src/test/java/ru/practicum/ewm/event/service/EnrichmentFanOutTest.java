@@ -0,0 +1,70 @@
+package ru.practicum.ewm.event.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.stats.client.Bulkhead;
+import ru.practicum.stats.client.CircuitBreaker;
+import ru.practicum.stats.client.ResilientStatsClient;
+import ru.practicum.stats.client.StatsClient;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A view lookup that misses the enrichment deadline against a slow but healthy stats server is abandoned, not
+ * interrupted: it still completes within the bulkhead timeout and the circuit breaker records a success.
+ */
+class EnrichmentFanOutTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    private final EnrichmentFanOut fanOut = new EnrichmentFanOut(50, 4);
+    private final Bulkhead bulkhead = new Bulkhead(2, 2, Duration.ofSeconds(2));
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+        bulkhead.close();
+    }
+
+    @Test
+    void deadlineMissDoesNotCountAsBreakerFailure() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StatsClient slowServer = mock(StatsClient.class);
+        when(slowServer.getEventViews(any(), any(), any(), anyBoolean())).thenAnswer(invocation -> {
+            release.await();
+            return Map.of(1L, 7L);
+        });
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofSeconds(10));
+        StatsClient client = new ResilientStatsClient(slowServer, breaker, bulkhead);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        Map<Long, Long> views;
+        try (EnrichmentFanOut.Scope scope = fanOut.open()) {
+            Future<Map<Long, Long>> fork = scope.fork(() -> {
+                try {
+                    return client.getEventViews(new long[]{1L}, NOW.minusDays(1), NOW, false);
+                } finally {
+                    finished.countDown();
+                }
+            });
+            views = scope.join(fork, Map.of());
+        }
+        release.countDown();
+
+        assertThat(views).isEmpty();
+        assertThat(finished.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getConsecutiveFailures()).isZero();
+    }
+}
@@ -1,15 +1,27 @@
 package ru.practicum.statsserver.controller;
 
 import jakarta.validation.Valid;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.EventViewsRequest;
+import ru.practicum.stats.dto.EventViewsResponse;
+import ru.practicum.stats.dto.StatsQueryItem;
 import ru.practicum.stats.dto.ViewStats;
 import ru.practicum.statsserver.exception.BadRequestException;
+import ru.practicum.statsserver.model.Granularity;
 import ru.practicum.statsserver.service.StatsService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -18,13 +30,22 @@ import java.util.List;
  * Endpoints comply with the OpenAPI specification:
  *  - POST /hit   — record a hit
  *  - GET  /stats — retrieve aggregated statistics
+ * Extensions:
+ *  - POST /hits/batch — record many hits at once (buffered, written in JDBC batches; 503 while the buffer is full)
+ *  - GET  /stats?unique=true&approximate=true — unique counts estimated from HyperLogLog sketches
+ *    (≈1.6% standard error, ±3.3% at 95%)
+ *  - POST /stats/query — many (uri, start, end, unique) windows answered in one call
+ *  - POST /stats/events/views — views by event id, returned as an array aligned with the request ids
+ *  - GET  /stats/timeseries — per-bucket counts (MINUTE, HOUR or DAY), streamed as a JSON array
  */
 @RestController
 @RequestMapping
 @RequiredArgsConstructor
+@Validated
 public class StatsController {
 
     private final StatsService service;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -32,6 +53,13 @@ public class StatsController {
         service.saveHit(body);
     }
 
+    @PostMapping("/hits/batch")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void saveHits(@RequestBody List<@Valid EndpointHitDto> body) {
+        if (body.isEmpty()) return;
+        service.saveHits(body);
+    }
+
     @GetMapping("/stats")
     public List<ViewStats> getStats(
             @RequestParam("start")
@@ -39,11 +67,59 @@ public class StatsController {
             @RequestParam("end")
             @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
             @RequestParam(value = "uris", required = false) List<String> uris,
+            @RequestParam(value = "unique", defaultValue = "false") boolean unique,
+            @RequestParam(value = "approximate", defaultValue = "false") boolean approximate
+    ) {
+        if (end.isBefore(start)) {
+            throw new BadRequestException("end must be equal to or after start");
+        }
+        return service.getStats(start, end, uris, unique, approximate);
+    }
+
+    @PostMapping("/stats/query")
+    public List<List<ViewStats>> queryStats(@RequestBody List<@Valid StatsQueryItem> body) {
+        for (StatsQueryItem item : body) {
+            if (item.getEnd().isBefore(item.getStart())) {
+                throw new BadRequestException("end must be equal to or after start for uri " + item.getUri());
+            }
+        }
+        return service.queryStats(body);
+    }
+
+    @PostMapping("/stats/events/views")
+    public EventViewsResponse getEventViews(@Valid @RequestBody EventViewsRequest body) {
+        if (body.getEnd().isBefore(body.getStart())) {
+            throw new BadRequestException("end must be equal to or after start");
+        }
+        return service.getEventViews(body);
+    }
+
+    @GetMapping("/stats/timeseries")
+    public ResponseEntity<StreamingResponseBody> getTimeSeries(
+            @RequestParam("start")
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam("end")
+            @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam(value = "uris", required = false) List<String> uris,
+            @RequestParam("bucket") Granularity bucket,
             @RequestParam(value = "unique", defaultValue = "false") boolean unique
     ) {
         if (end.isBefore(start)) {
             throw new BadRequestException("end must be equal to or after start");
         }
-        return service.getStats(start, end, uris, unique);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                service.streamTimeSeries(start, end, uris, bucket, unique, point -> {
+                    try {
+                        json.writeObject(point);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,275 @@
+package ru.practicum.stats.client;
+
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.StatsQueryItem;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link StatsClient} decorator that sends hits in the background.
+ * <p>
+ * {@link #sendHit} only captures the hit and puts it on a bounded lock-free queue, so request latency does not
+ * depend on the stats server. A single sender thread is woken on every enqueue and posts whatever has
+ * accumulated (up to {@code batchSize}) in one request; under load hits batch up naturally while a send is
+ * in flight. When the queue is full the {@link OverflowPolicy} decides which hit is lost, or blocks the caller.
+ * <p>
+ * With a {@link HitSpool}, a failed batch is written to disk instead of being dropped. While the server is
+ * failing, new batches go straight to the spool and delivery is retried with exponential backoff by replaying
+ * the spool; once a replay succeeds the spool is drained batch by batch: whenever the queue is idle, and one spool
+ * batch after every {@value #LIVE_BATCHES_PER_REPLAY} live batches, so a steady stream of live hits cannot
+ * starve the backlog.
+ * A batch the server rejects with a 4xx ({@link HttpClientErrorException}) would be rejected again on every retry,
+ * so it is dropped (or acked off the spool) and counted as dropped; only I/O errors and 5xx responses are spooled
+ * and retried.
+ * All of this happens on the sender thread. Reads are delegated unchanged.
+ */
+@Slf4j
+public class AsyncStatsClient implements StatsClient, AutoCloseable {
+
+    /** What {@link #sendHit} does when the queue is full. */
+    public enum OverflowPolicy {
+        /** Evict the oldest queued hit to make room. */
+        DROP_OLDEST,
+        /** Discard the new hit. */
+        DROP_NEWEST,
+        /** Wait for the sender to free space; ties request latency to the stats server again. */
+        BLOCK
+    }
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long INITIAL_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int LIVE_BATCHES_PER_REPLAY = 4;
+
+    private final StatsClient delegate;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final HitSpool spool;
+    private final long maxBackoffNanos;
+    private final Queue<EndpointHitDto> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread sender;
+    private volatile boolean running = true;
+    /** Sender-thread state: current backoff and when delivery may be attempted again. */
+    private long backoffNanos;
+    private long retryAt;
+    /** Sender-thread state: live batches sent since the spool was last replayed. */
+    private int liveSinceReplay;
+
+    public AsyncStatsClient(StatsClient delegate, int capacity, int batchSize, long flushIntervalMs,
+                            OverflowPolicy overflowPolicy) {
+        this(delegate, capacity, batchSize, flushIntervalMs, overflowPolicy, null, 0);
+    }
+
+    /** {@code spool} may be {@code null}: failed batches are then dropped. */
+    public AsyncStatsClient(StatsClient delegate, int capacity, int batchSize, long flushIntervalMs,
+                            OverflowPolicy overflowPolicy, HitSpool spool, long maxBackoffMs) {
+        this.delegate = delegate;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.overflowPolicy = overflowPolicy;
+        this.spool = spool;
+        this.maxBackoffNanos = TimeUnit.MILLISECONDS.toNanos(maxBackoffMs);
+        this.sender = Thread.ofPlatform().name("stats-hit-sender").daemon().start(this::runSender);
+    }
+
+    @Override
+    public void sendHit(HttpServletRequest request) {
+        enqueue(delegate.toHit(request));
+    }
+
+    @Override
+    public EndpointHitDto toHit(HttpServletRequest request) {
+        return delegate.toHit(request);
+    }
+
+    @Override
+    public void sendHits(List<EndpointHitDto> hits) {
+        hits.forEach(this::enqueue);
+    }
+
+    @Override
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return delegate.getStats(start, end, uris, unique);
+    }
+
+    @Override
+    public List<List<ViewStats>> queryStats(List<StatsQueryItem> items) {
+        return delegate.queryStats(items);
+    }
+
+    @Override
+    public Map<Long, Long> getEventViews(long[] eventIds, LocalDateTime start, LocalDateTime end, boolean unique) {
+        return delegate.getEventViews(eventIds, start, end, unique);
+    }
+
+    /** Hits successfully delivered to the stats server. */
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    /** Hits lost to queue overflow, failed sends without a spool, 4xx rejections, or the spool size cap. */
+    public long getDroppedCount() {
+        return dropped.get() + (spool != null ? spool.getDroppedCount() : 0);
+    }
+
+    public int getQueuedCount() {
+        return size.get();
+    }
+
+    /** Stops the sender after it has tried to deliver everything still queued, then closes the delegate. */
+    @Override
+    public void close() throws Exception {
+        running = false;
+        LockSupport.unpark(sender);
+        sender.join(TimeUnit.SECONDS.toMillis(10));
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void enqueue(EndpointHitDto hit) {
+        while (!tryReserve()) {
+            switch (overflowPolicy) {
+                case DROP_NEWEST -> {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                case DROP_OLDEST -> {
+                    if (queue.poll() != null) {
+                        size.decrementAndGet();
+                        dropped.incrementAndGet();
+                    }
+                }
+                case BLOCK -> {
+                    LockSupport.unpark(sender);
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                }
+            }
+        }
+        queue.offer(hit);
+        LockSupport.unpark(sender);
+    }
+
+    /** Claims one slot of capacity; the queue itself is unbounded, {@code size} enforces the bound. */
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= capacity) return false;
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void runSender() {
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            EndpointHitDto hit;
+            while (batch.size() < batchSize && (hit = queue.poll()) != null) {
+                size.decrementAndGet();
+                batch.add(hit);
+            }
+            if (!batch.isEmpty()) {
+                if (inBackoff()) {
+                    spool(batch);
+                } else {
+                    send(batch);
+                    if (spool != null && !spool.isEmpty() && ++liveSinceReplay >= LIVE_BATCHES_PER_REPLAY
+                            && !inBackoff()) {
+                        replay();
+                    }
+                }
+                batch.clear();
+            } else if (canReplay()) {
+                replay();
+            } else {
+                long wait = flushIntervalNanos;
+                if (spool != null && !spool.isEmpty()) {
+                    wait = Math.max(1, Math.min(wait, retryAt - System.nanoTime()));
+                }
+                LockSupport.parkNanos(this, wait);
+            }
+        }
+    }
+
+    private void send(List<EndpointHitDto> batch) {
+        try {
+            delegate.sendHits(batch);
+            sent.addAndGet(batch.size());
+            backoffNanos = 0;
+        } catch (HttpClientErrorException ex) {
+            reject(batch.size(), ex);
+        } catch (RuntimeException ex) {
+            log.warn("stats sendHits failed for {} hits: {}", batch.size(), ex.getMessage());
+            onFailure();
+            spool(batch);
+        }
+    }
+
+    private boolean canReplay() {
+        return spool != null && !spool.isEmpty() && !inBackoff();
+    }
+
+    private void replay() {
+        liveSinceReplay = 0;
+        HitSpool.Batch batch = spool.next(batchSize);
+        try {
+            delegate.sendHits(batch.hits());
+            sent.addAndGet(batch.hits().size());
+            spool.ack(batch);
+            backoffNanos = 0;
+        } catch (HttpClientErrorException ex) {
+            spool.ack(batch);
+            reject(batch.hits().size(), ex);
+        } catch (RuntimeException ex) {
+            log.debug("stats spool replay failed: {}", ex.getMessage());
+            onFailure();
+        }
+    }
+
+    /** The server is up but refused the hits; retrying would only be refused again. */
+    private void reject(int hits, HttpClientErrorException ex) {
+        dropped.addAndGet(hits);
+        backoffNanos = 0;
+        log.warn("stats rejected {} hits with {}, dropping them", hits, ex.getStatusCode());
+    }
+
+    private void spool(List<EndpointHitDto> batch) {
+        if (spool == null) {
+            dropped.addAndGet(batch.size());
+            return;
+        }
+        try {
+            spool.append(batch);
+        } catch (RuntimeException ex) {
+            dropped.addAndGet(batch.size());
+            log.warn("stats spool write failed, dropped {} hits: {}", batch.size(), ex.getMessage());
+        }
+    }
+
+    private boolean inBackoff() {
+        return spool != null && backoffNanos > 0 && System.nanoTime() - retryAt < 0;
+    }
+
+    private void onFailure() {
+        backoffNanos = (backoffNanos == 0) ? INITIAL_BACKOFF_NANOS : Math.min(backoffNanos * 2, maxBackoffNanos);
+        retryAt = System.nanoTime() + backoffNanos;
+    }
+}
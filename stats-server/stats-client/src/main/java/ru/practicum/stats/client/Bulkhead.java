@@ -0,0 +1,81 @@
+package ru.practicum.stats.client;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated bounded executor for stats calls. At most {@code maxConcurrent} calls run and {@code queueSize} wait;
+ * anything beyond that is rejected at once, and a caller never waits longer than {@code timeout},
+ * so a slow stats server can only ever hold a bounded number of caller threads for a bounded time.
+ * A caller interrupted while waiting gets {@link StatsRejectedException}, not a failure of the call.
+ */
+public class Bulkhead implements AutoCloseable {
+
+    private final ThreadPoolExecutor executor;
+    private final long timeoutNanos;
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public Bulkhead(int maxConcurrent, int queueSize, Duration timeout) {
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                Thread.ofPlatform().name("stats-call-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public <T> T call(Supplier<T> action) {
+        Future<T> future;
+        try {
+            future = executor.submit(action::get);
+        } catch (RejectedExecutionException ex) {
+            rejected.incrementAndGet();
+            throw new StatsRejectedException("Stats bulkhead is full", ex);
+        }
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            timedOut.incrementAndGet();
+            throw new StatsUnavailableException("Stats call timed out", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new StatsUnavailableException("Stats call failed", ex.getCause());
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            // The caller gave up, which says nothing about the server: keep the breaker out of it.
+            throw new StatsRejectedException("Interrupted while waiting for stats", ex);
+        }
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getTimedOutCount() {
+        return timedOut.get();
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
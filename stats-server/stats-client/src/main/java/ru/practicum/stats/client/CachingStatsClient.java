@@ -0,0 +1,125 @@
+package ru.practicum.stats.client;
+
+import jakarta.servlet.http.HttpServletRequest;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.StatsQueryItem;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+
+/**
+ * {@link StatsClient} decorator that caches view counts (see {@link SingleFlightCache} for TTL, single-flight
+ * and stale-while-revalidate behaviour).
+ * <p>
+ * Window bounds are truncated to {@code keyBucket} before they become part of a key, so requests whose
+ * "now"-based windows differ by a few seconds share entries. Event views are cached per event id, so a page only
+ * fetches the ids it is missing. When the stats server is unavailable ({@link StatsUnavailableException}),
+ * the last cached value is served regardless of age, if there is one.
+ * Hit sending and batched queries pass through uncached.
+ */
+public class CachingStatsClient implements StatsClient, AutoCloseable {
+
+    private final StatsClient delegate;
+    private final long keyBucketSeconds;
+    private final SingleFlightCache<EventViewsKey, Long> eventViews;
+    private final SingleFlightCache<StatsKey, List<ViewStats>> stats;
+
+    public CachingStatsClient(StatsClient delegate, Duration ttl, Duration staleTtl, int maxEntries,
+                              Duration keyBucket, Executor refreshExecutor) {
+        this.delegate = delegate;
+        this.keyBucketSeconds = Math.max(1, keyBucket.toSeconds());
+        this.eventViews = new SingleFlightCache<>(ttl.toNanos(), staleTtl.toNanos(), maxEntries, refreshExecutor);
+        this.stats = new SingleFlightCache<>(ttl.toNanos(), staleTtl.toNanos(), maxEntries, refreshExecutor);
+    }
+
+    @Override
+    public void sendHit(HttpServletRequest request) {
+        delegate.sendHit(request);
+    }
+
+    @Override
+    public EndpointHitDto toHit(HttpServletRequest request) {
+        return delegate.toHit(request);
+    }
+
+    @Override
+    public void sendHits(List<EndpointHitDto> hits) {
+        delegate.sendHits(hits);
+    }
+
+    @Override
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        List<String> normalized = (uris == null) ? List.of() : uris.stream().distinct().sorted().toList();
+        StatsKey key = new StatsKey(normalized, bucket(start), bucket(end), unique);
+        List<ViewStats> result;
+        try {
+            result = stats.getAll(Set.of(key),
+                    keys -> Map.of(key, delegate.getStats(start, end, normalized, unique))).get(key);
+        } catch (StatsUnavailableException ex) {
+            result = stats.getIfPresent(key).orElseThrow(() -> ex);
+        }
+        return (result != null) ? result : List.of();
+    }
+
+    @Override
+    public List<List<ViewStats>> queryStats(List<StatsQueryItem> items) {
+        return delegate.queryStats(items);
+    }
+
+    @Override
+    public Map<Long, Long> getEventViews(long[] eventIds, LocalDateTime start, LocalDateTime end, boolean unique) {
+        LocalDateTime startBucket = bucket(start);
+        LocalDateTime endBucket = bucket(end);
+        List<EventViewsKey> keys = Arrays.stream(eventIds).distinct()
+                .mapToObj(id -> new EventViewsKey(id, startBucket, endBucket, unique))
+                .toList();
+        Map<EventViewsKey, Long> cached;
+        try {
+            cached = eventViews.getAll(keys, missing -> {
+                long[] ids = missing.stream().mapToLong(EventViewsKey::eventId).toArray();
+                Map<Long, Long> loaded = delegate.getEventViews(ids, start, end, unique);
+                return missing.stream().collect(Collectors.toMap(k -> k, k -> loaded.getOrDefault(k.eventId(), 0L)));
+            });
+        } catch (StatsUnavailableException ex) {
+            Map<EventViewsKey, Long> fallback = new HashMap<>();
+            for (EventViewsKey key : keys) {
+                eventViews.getIfPresent(key).ifPresent(views -> fallback.put(key, views));
+            }
+            if (fallback.isEmpty()) throw ex;
+            cached = fallback;
+        }
+        Map<Long, Long> result = new HashMap<>(eventIds.length * 2);
+        for (EventViewsKey key : keys) {
+            Long views = cached.get(key);
+            result.put(key.eventId(), (views != null) ? views : 0L);
+        }
+        return result;
+    }
+
+    /** Closes the delegate if it holds resources (e.g. the background hit sender). */
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private LocalDateTime bucket(LocalDateTime ts) {
+        long seconds = ts.toLocalTime().toSecondOfDay();
+        return ts.toLocalDate().atStartOfDay().plusSeconds(seconds - seconds % keyBucketSeconds);
+    }
+
+    private record EventViewsKey(long eventId, LocalDateTime start, LocalDateTime end, boolean unique) {
+    }
+
+    private record StatsKey(List<String> uris, LocalDateTime start, LocalDateTime end, boolean unique) {
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.stats.client;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Consecutive-failure circuit breaker.
+ * <p>
+ * CLOSED: calls pass; {@code failureThreshold} failures in a row open the circuit.
+ * OPEN: calls fail fast with {@link StatsUnavailableException} for {@code openDuration}.
+ * HALF_OPEN: a single probe call is let through; its success closes the circuit, its failure re-opens it.
+ * <p>
+ * Calls refused locally ({@link StatsRejectedException}, e.g. by a full bulkhead) count as neither success
+ * nor failure; a refused probe only frees the probe slot. Timeouts do count as failures.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long rejectedCount;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    public <T> T call(Supplier<T> action) {
+        boolean probe = acquirePermission();
+        try {
+            T result = action.get();
+            onSuccess();
+            return result;
+        } catch (StatsRejectedException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            onFailure();
+            throw ex;
+        } finally {
+            if (probe) endProbe();
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /** Calls refused without being attempted. */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /** Returns {@code true} if the caller holds the half-open probe slot and must release it. */
+    private synchronized boolean acquirePermission() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) return false;
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejectedCount++;
+        throw new StatsRejectedException("Stats circuit is " + state);
+    }
+
+    private synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+        }
+    }
+
+    private synchronized void endProbe() {
+        probeInFlight = false;
+    }
+}
@@ -0,0 +1,266 @@
+package ru.practicum.stats.client;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only on-disk queue of hits that could not be delivered to the stats server.
+ * <p>
+ * Hits are appended to the newest segment file ({@code spool-<id>.bin}); a segment is rotated once it reaches
+ * {@code segmentBytes}. When the spool grows past {@code maxBytes} the oldest segments are deleted and their hits
+ * counted as dropped. Records are framed as {@code [length][CRC32][payload]} and every append is fsynced before
+ * it returns, so spooled hits survive a power loss. A crash mid-write leaves at most one torn record at the tail;
+ * on open each segment is cut back to its last intact record, so appends after a restart never land behind it.
+ * Replay reads from the oldest segment and deletes it once every batch taken from it has been
+ * {@linkplain #ack acknowledged}. The replay position is kept in memory only, so a restart may resend
+ * the already delivered part of one segment.
+ */
+@Slf4j
+public class HitSpool {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String PREFIX = "spool-";
+    private static final String SUFFIX = ".bin";
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final long maxBytes;
+    /** Segment id → size in bytes, oldest first; the last entry is the active segment. */
+    private final TreeMap<Long, Long> segments = new TreeMap<>();
+    private long readOffset;
+    /** Set once replay reads the newest segment, so later appends cannot land behind the replay position. */
+    private boolean rotate;
+    private long droppedCount;
+
+    public HitSpool(Path dir, long segmentBytes, long maxBytes) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    long id = segmentId(file);
+                    if (id >= 0) segments.put(id, Files.size(file));
+                }
+            }
+            for (long segment : List.copyOf(segments.keySet())) {
+                truncateTornTail(segment);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open hit spool in " + dir, ex);
+        }
+        if (!segments.isEmpty()) {
+            log.info("Hit spool at {} holds {} bytes to replay", dir, totalBytes());
+        }
+    }
+
+    public synchronized void append(List<EndpointHitDto> hits) {
+        if (hits.isEmpty()) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        for (EndpointHitDto hit : hits) {
+            byte[] payload = encode(hit);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            bytes.writeBytes(ByteBuffer.allocate(HEADER_BYTES)
+                    .putInt(payload.length).putInt((int) crc.getValue()).array());
+            bytes.writeBytes(payload);
+        }
+        long active;
+        if (segments.isEmpty()) {
+            active = 0;
+        } else if (rotate || segments.lastEntry().getValue() >= segmentBytes) {
+            active = segments.lastKey() + 1;
+        } else {
+            active = segments.lastKey();
+        }
+        rotate = false;
+        try (FileChannel channel = FileChannel.open(path(active),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(bytes.toByteArray()));
+            channel.force(false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write hit spool segment " + active, ex);
+        }
+        segments.merge(active, (long) bytes.size(), Long::sum);
+        enforceCap();
+    }
+
+    public synchronized boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /** Reads up to {@code max} hits from the oldest segment, starting after the last acknowledged batch. */
+    public synchronized Batch next(int max) {
+        if (segments.isEmpty()) return new Batch(-1, 0, List.of());
+        long segment = segments.firstKey();
+        if (segment == segments.lastKey()) rotate = true;
+        List<EndpointHitDto> hits = new ArrayList<>(max);
+        long offset = readOffset;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path(segment)))) {
+            in.skipNBytes(offset);
+            while (hits.size() < max) {
+                byte[] payload = readRecord(in);
+                if (payload == null) {
+                    offset = Long.MAX_VALUE;
+                    break;
+                }
+                hits.add(decode(payload));
+                offset += HEADER_BYTES + payload.length;
+            }
+        } catch (IOException ex) {
+            log.warn("Hit spool segment {} is unreadable, discarding it: {}", segment, ex.getMessage());
+            offset = Long.MAX_VALUE;
+        }
+        return new Batch(segment, offset, hits);
+    }
+
+    /** Marks a batch from {@link #next} as delivered; deletes its segment once it has been read to the end. */
+    public synchronized void ack(Batch batch) {
+        if (batch.segment() < 0 || !segments.containsKey(batch.segment())) return;
+        if (batch.endOffset() < segments.get(batch.segment())) {
+            readOffset = batch.endOffset();
+            return;
+        }
+        delete(batch.segment());
+    }
+
+    /** Hits discarded because the spool exceeded its size cap. */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public synchronized long totalBytes() {
+        return segments.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private void enforceCap() {
+        while (segments.size() > 1 && totalBytes() > maxBytes) {
+            long oldest = segments.firstKey();
+            long lost = countRecords(oldest);
+            delete(oldest);
+            droppedCount += lost;
+            log.warn("Hit spool exceeds {} bytes, dropped segment {} with {} hits", maxBytes, oldest, lost);
+        }
+    }
+
+    /** Cuts {@code segment} back to its last intact record, deleting it if none is left. */
+    private void truncateTornTail(long segment) throws IOException {
+        long valid = 0;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path(segment)))) {
+            byte[] payload;
+            while ((payload = readRecord(in)) != null) {
+                valid += HEADER_BYTES + payload.length;
+            }
+        }
+        long size = segments.get(segment);
+        if (valid == size) return;
+        log.warn("Hit spool segment {} has a torn record at offset {}, discarding the last {} bytes",
+                segment, valid, size - valid);
+        if (valid == 0) {
+            delete(segment);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path(segment), StandardOpenOption.WRITE)) {
+            channel.truncate(valid);
+            channel.force(false);
+        }
+        segments.put(segment, valid);
+    }
+
+    private void delete(long segment) {
+        try {
+            Files.deleteIfExists(path(segment));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot delete hit spool segment " + segment, ex);
+        }
+        segments.remove(segment);
+        readOffset = 0;
+    }
+
+    private long countRecords(long segment) {
+        long count = 0;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(path(segment)))) {
+            while (readRecord(in) != null) count++;
+        } catch (IOException ex) {
+            log.debug("Cannot count records of hit spool segment {}: {}", segment, ex.getMessage());
+        }
+        return count;
+    }
+
+    /** Next intact record, or {@code null} at the end of data or at a torn record. */
+    private static byte[] readRecord(DataInputStream in) throws IOException {
+        byte[] header = in.readNBytes(HEADER_BYTES);
+        if (header.length < HEADER_BYTES) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(header);
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0) return null;
+        byte[] payload = in.readNBytes(length);
+        if (payload.length < length) return null;
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ((int) crc.getValue() == checksum) ? payload : null;
+    }
+
+    private Path path(long segment) {
+        return dir.resolve(PREFIX + String.format("%020d", segment) + SUFFIX);
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static byte[] encode(EndpointHitDto hit) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(hit.getApp());
+            out.writeUTF(hit.getUri());
+            out.writeUTF(hit.getIp());
+            out.writeLong(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(hit.getTimestamp().getNano());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static EndpointHitDto decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            String app = in.readUTF();
+            String uri = in.readUTF();
+            String ip = in.readUTF();
+            LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            return new EndpointHitDto(app, uri, ip, timestamp);
+        }
+    }
+
+    /** Hits read from {@code segment}, ending at byte {@code endOffset} ({@link Long#MAX_VALUE}: end of segment). */
+    public record Batch(long segment, long endOffset, List<EndpointHitDto> hits) {
+    }
+}
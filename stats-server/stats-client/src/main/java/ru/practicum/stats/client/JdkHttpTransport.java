@@ -0,0 +1,104 @@
+package ru.practicum.stats.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Pooled transport for the stats {@code RestTemplate} on top of {@link java.net.http.HttpClient}:
+ * persistent keep-alive connections shared by all calls, optional HTTP/2 (h2c upgrade falls back to HTTP/1.1
+ * when the server does not support it) and optional gzip-compressed responses.
+ * <p>
+ * The JDK client takes its pool size and keep-alive from JVM-wide system properties read once, when the first
+ * {@code HttpClient} of the JVM is created, so they are not set from here; pass them on the command line or in
+ * {@code JDK_JAVA_OPTIONS} (as the main service Dockerfile does):
+ * <pre>
+ * -Djdk.httpclient.connectionPoolSize=64 -Djdk.httpclient.keepalive.timeout=60
+ * </pre>
+ * Without them the pool is unbounded and idle connections are closed after 30 seconds (HTTP/1.1).
+ * {@code JdkHttpTransportBenchmark} (stats-client tests) compares this transport with the default one.
+ */
+public final class JdkHttpTransport {
+
+    private JdkHttpTransport() {
+    }
+
+    public static ClientHttpRequestFactory requestFactory(boolean http2, Duration connectTimeout,
+                                                          Duration readTimeout) {
+        HttpClient client = HttpClient.newBuilder()
+                .version(http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+        factory.setReadTimeout(readTimeout);
+        return factory;
+    }
+
+    /** Asks for gzip-encoded responses and transparently decompresses them. */
+    public static ClientHttpRequestInterceptor gzipResponses() {
+        return (HttpRequest request, byte[] body, ClientHttpRequestExecution execution) -> {
+            request.getHeaders().set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            ClientHttpResponse response = execution.execute(request, body);
+            if (!"gzip".equalsIgnoreCase(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING))) {
+                return response;
+            }
+            return new GzipResponse(response);
+        };
+    }
+
+    private static final class GzipResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final HttpHeaders headers;
+        private InputStream body;
+
+        private GzipResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+            this.headers = new HttpHeaders();
+            this.headers.putAll(delegate.getHeaders());
+            this.headers.remove(HttpHeaders.CONTENT_ENCODING);
+            this.headers.remove(HttpHeaders.CONTENT_LENGTH);
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = new GZIPInputStream(delegate.getBody());
+            }
+            return body;
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ru.practicum.stats.client;
+
+import jakarta.servlet.http.HttpServletRequest;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.StatsQueryItem;
+import ru.practicum.stats.dto.ViewStats;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link StatsClient} decorator that runs reads through a {@link CircuitBreaker} and a {@link Bulkhead}:
+ * callers wait at most the bulkhead timeout, and while the circuit is open reads fail fast with
+ * {@link StatsUnavailableException}. Hits pass straight through; in async mode they never block the caller,
+ * and failed deliveries are retried from the spool.
+ */
+public class ResilientStatsClient implements StatsClient, AutoCloseable {
+
+    private final StatsClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+
+    public ResilientStatsClient(StatsClient delegate, CircuitBreaker circuitBreaker, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public void sendHit(HttpServletRequest request) {
+        delegate.sendHit(request);
+    }
+
+    @Override
+    public EndpointHitDto toHit(HttpServletRequest request) {
+        return delegate.toHit(request);
+    }
+
+    @Override
+    public void sendHits(List<EndpointHitDto> hits) {
+        delegate.sendHits(hits);
+    }
+
+    @Override
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return circuitBreaker.call(() -> bulkhead.call(() -> delegate.getStats(start, end, uris, unique)));
+    }
+
+    @Override
+    public List<List<ViewStats>> queryStats(List<StatsQueryItem> items) {
+        return circuitBreaker.call(() -> bulkhead.call(() -> delegate.queryStats(items)));
+    }
+
+    @Override
+    public Map<Long, Long> getEventViews(long[] eventIds, LocalDateTime start, LocalDateTime end, boolean unique) {
+        return circuitBreaker.call(() -> bulkhead.call(() -> delegate.getEventViews(eventIds, start, end, unique)));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
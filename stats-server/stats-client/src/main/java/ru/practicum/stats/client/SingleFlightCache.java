@@ -0,0 +1,158 @@
+package ru.practicum.stats.client;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Bounded TTL cache with single-flight loading and stale-while-revalidate.
+ * <p>
+ * Entries younger than {@code ttl} are served as is. Entries older than that but within {@code ttl + staleTtl}
+ * are served immediately while one background reload refreshes them. Missing or expired keys are loaded on the
+ * caller thread; a key already being loaded by another caller is awaited rather than loaded twice.
+ * Entries are kept in access order and the least recently used one is evicted once there are more than
+ * {@code maxEntries}, in constant time per insert.
+ */
+class SingleFlightCache<K, V> {
+
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final Executor refreshExecutor;
+    /** Access-ordered LRU map; guarded by itself. */
+    private final Map<K, Cached<V>> entries;
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    SingleFlightCache(long ttlNanos, long staleNanos, int maxEntries, Executor refreshExecutor) {
+        this.ttlNanos = ttlNanos;
+        this.staleNanos = staleNanos;
+        this.refreshExecutor = refreshExecutor;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Cached<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /** Values for all {@code keys}; {@code loader} is called at most once, with the keys this caller must load. */
+    Map<K, V> getAll(Collection<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        long now = System.nanoTime();
+        Map<K, V> result = new HashMap<>();
+        Set<K> stale = new HashSet<>();
+        Map<K, CompletableFuture<V>> owned = new HashMap<>();
+        Map<K, CompletableFuture<V>> awaited = new HashMap<>();
+        for (K key : keys) {
+            Cached<V> entry = cached(key);
+            long age = (entry == null) ? Long.MAX_VALUE : now - entry.loadedAt();
+            if (age < ttlNanos) {
+                result.put(key, entry.value());
+                continue;
+            }
+            if (age < ttlNanos + staleNanos) {
+                result.put(key, entry.value());
+                stale.add(key);
+                continue;
+            }
+            CompletableFuture<V> future = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+            if (existing == null) {
+                owned.put(key, future);
+            } else {
+                awaited.put(key, existing);
+            }
+        }
+        if (!stale.isEmpty()) {
+            refreshInBackground(stale, loader);
+        }
+        if (!owned.isEmpty()) {
+            result.putAll(load(owned, loader));
+        }
+        try {
+            awaited.forEach((key, future) -> result.put(key, future.join()));
+        } catch (CompletionException ex) {
+            throw (ex.getCause() instanceof RuntimeException re) ? re : ex;
+        }
+        return result;
+    }
+
+    /** Last known value, however old; used as a fallback when loading is not possible. */
+    Optional<V> getIfPresent(K key) {
+        return Optional.ofNullable(cached(key)).map(Cached::value);
+    }
+
+    int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private Cached<V> cached(K key) {
+        synchronized (entries) {
+            return entries.get(key);
+        }
+    }
+
+    private void refreshInBackground(Set<K> keys, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, CompletableFuture<V>> owned = new HashMap<>();
+        for (K key : keys) {
+            CompletableFuture<V> future = new CompletableFuture<>();
+            if (inFlight.putIfAbsent(key, future) == null) {
+                owned.put(key, future);
+            }
+        }
+        if (owned.isEmpty()) return;
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    load(owned, loader);
+                } catch (RuntimeException ignored) {
+                    // The stale value stays in place; the next reader retries.
+                }
+            });
+        } catch (RuntimeException rejected) {
+            owned.forEach((key, future) -> {
+                inFlight.remove(key, future);
+                future.completeExceptionally(rejected);
+            });
+        }
+    }
+
+    private Map<K, V> load(Map<K, CompletableFuture<V>> owned, Function<Set<K>, Map<K, V>> loader) {
+        Map<K, V> loaded;
+        try {
+            loaded = loader.apply(owned.keySet());
+        } catch (RuntimeException ex) {
+            owned.forEach((key, future) -> {
+                inFlight.remove(key, future);
+                future.completeExceptionally(ex);
+            });
+            throw ex;
+        }
+        long now = System.nanoTime();
+        Map<K, V> result = new HashMap<>();
+        owned.forEach((key, future) -> {
+            V value = loaded.get(key);
+            if (value != null) {
+                synchronized (entries) {
+                    entries.put(key, new Cached<>(value, now));
+                }
+                result.put(key, value);
+            }
+            inFlight.remove(key, future);
+            future.complete(value);
+        });
+        return result;
+    }
+
+    private record Cached<V>(V value, long loadedAt) {
+    }
+}
@@ -1,14 +1,29 @@
 package ru.practicum.stats.client;
 
 import jakarta.servlet.http.HttpServletRequest;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.StatsQueryItem;
 import ru.practicum.stats.dto.ViewStats;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 /** Thin HTTP client for the statistics service. */
 public interface StatsClient {
     void sendHit(HttpServletRequest request);
 
+    /** Captures the hit of the current request without sending it; must run on the request thread. */
+    EndpointHitDto toHit(HttpServletRequest request);
+
+    /** Sends already captured hits in one request. */
+    void sendHits(List<EndpointHitDto> hits);
+
     List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+    /** Batched stats: each item has its own URI and window; returns one result list per item, in the same order. */
+    List<List<ViewStats>> queryStats(List<StatsQueryItem> items);
+
+    /** Views of events by id ({@code /events/{id}} hits over all apps); every requested id is present in the result. */
+    Map<Long, Long> getEventViews(long[] eventIds, LocalDateTime start, LocalDateTime end, boolean unique);
 }
\ No newline at end of file
@@ -6,18 +6,24 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.EventViewsRequest;
+import ru.practicum.stats.dto.EventViewsResponse;
+import ru.practicum.stats.dto.StatsQueryItem;
 import ru.practicum.stats.dto.ViewStats;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * RestTemplate-based implementation of {@link StatsClient}.
@@ -46,17 +52,27 @@ public class StatsClientImpl implements StatsClient {
 
     @Override
     public void sendHit(HttpServletRequest request) {
-        String ip  = request.getRemoteAddr();
-        String uri = request.getRequestURI();
+        restTemplate.postForEntity(baseUrl + "/hit", toHit(request), Void.class);
+    }
 
-        EndpointHitDto hit = EndpointHitDto.builder()
+    @Override
+    public EndpointHitDto toHit(HttpServletRequest request) {
+        return EndpointHitDto.builder()
                 .app(appName)
-                .uri(uri)
-                .ip(ip)
+                .uri(request.getRequestURI())
+                .ip(request.getRemoteAddr())
                 .timestamp(LocalDateTime.now())
                 .build();
+    }
 
-        restTemplate.postForEntity(baseUrl + "/hit", hit, Void.class);
+    @Override
+    public void sendHits(List<EndpointHitDto> hits) {
+        if (hits == null || hits.isEmpty()) return;
+        if (hits.size() == 1) {
+            restTemplate.postForEntity(baseUrl + "/hit", hits.get(0), Void.class);
+            return;
+        }
+        restTemplate.postForEntity(baseUrl + "/hits/batch", hits, Void.class);
     }
 
     @Override
@@ -79,4 +95,30 @@ public class StatsClientImpl implements StatsClient {
         List<ViewStats> body = resp.getBody();
         return body != null ? body : List.of();
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<List<ViewStats>> queryStats(List<StatsQueryItem> items) {
+        if (items == null || items.isEmpty()) return List.of();
+        log.debug("POST {}/stats/query ({} windows)", baseUrl, items.size());
+        ResponseEntity<List<List<ViewStats>>> resp = restTemplate.exchange(
+                baseUrl + "/stats/query", HttpMethod.POST, new HttpEntity<>(items),
+                new ParameterizedTypeReference<List<List<ViewStats>>>() {}
+        );
+        List<List<ViewStats>> body = resp.getBody();
+        return body != null ? body : List.of();
+    }
+
+    @Override
+    public Map<Long, Long> getEventViews(long[] eventIds, LocalDateTime start, LocalDateTime end, boolean unique) {
+        Map<Long, Long> result = new HashMap<>(eventIds.length * 2);
+        if (eventIds.length == 0) return result;
+        EventViewsRequest request = new EventViewsRequest(eventIds, start, end, unique);
+        EventViewsResponse resp = restTemplate.postForObject(
+                baseUrl + "/stats/events/views", request, EventViewsResponse.class);
+        long[] views = (resp != null && resp.getViews() != null) ? resp.getViews() : new long[eventIds.length];
+        for (int i = 0; i < eventIds.length; i++) {
+            result.put(eventIds[i], i < views.length ? views[i] : 0L);
+        }
+        return result;
+    }
+}
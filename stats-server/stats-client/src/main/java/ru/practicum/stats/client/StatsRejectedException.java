@@ -0,0 +1,16 @@
+package ru.practicum.stats.client;
+
+/**
+ * A stats call was refused locally without reaching the server (open circuit, full bulkhead).
+ * Says nothing about the server's health, so {@link CircuitBreaker} does not count it as a failure.
+ */
+public class StatsRejectedException extends StatsUnavailableException {
+
+    public StatsRejectedException(String message) {
+        super(message);
+    }
+
+    public StatsRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
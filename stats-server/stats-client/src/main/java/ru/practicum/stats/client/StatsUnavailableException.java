@@ -0,0 +1,13 @@
+package ru.practicum.stats.client;
+
+/** A stats call was not attempted or did not complete in time (open circuit, full bulkhead, timeout). */
+public class StatsUnavailableException extends RuntimeException {
+
+    public StatsUnavailableException(String message) {
+        super(message);
+    }
+
+    public StatsUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.stats.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Delivery of {@link AsyncStatsClient} against a stats server that fails and recovers: failed hits are spooled
+ * and retried after a backoff, and a spool backlog is replayed between live batches instead of behind them.
+ */
+class AsyncStatsClientTest {
+
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2026, 1, 1, 12, 0);
+    private static final long LARGE = 1024 * 1024;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void failedBatchIsSpooledAndDeliveredAfterBackoff() throws Exception {
+        StatsClient server = mock(StatsClient.class);
+        doThrow(new IllegalStateException("stats server down")).doNothing().when(server).sendHits(any());
+        HitSpool spool = new HitSpool(dir, LARGE, LARGE);
+
+        try (AsyncStatsClient client = new AsyncStatsClient(server, 100, 10, 10,
+                AsyncStatsClient.OverflowPolicy.DROP_NEWEST, spool, 10_000)) {
+            client.sendHits(hits("/live/", 1));
+            long failedAt = System.nanoTime();
+            await(() -> !spool.isEmpty());
+            client.sendHits(hits("/live/", 1));
+
+            // Within the initial one-second backoff nothing is retried and new hits go straight to the spool.
+            TimeUnit.MILLISECONDS.sleep(300);
+            verify(server, times(1)).sendHits(any());
+            assertThat(client.getSentCount()).isZero();
+
+            await(() -> client.getSentCount() == 2);
+            assertThat(System.nanoTime() - failedAt).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(900));
+            assertThat(spool.isEmpty()).isTrue();
+            assertThat(client.getDroppedCount()).isZero();
+        }
+    }
+
+    @Test
+    void spoolBacklogIsReplayedAfterEveryFourthLiveBatch() throws Exception {
+        HitSpool spool = new HitSpool(dir, LARGE, LARGE);
+        spool.append(hits("/spool/", 3));
+        CountDownLatch firstSend = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+        StatsClient server = mock(StatsClient.class);
+        doAnswer(invocation -> {
+            List<EndpointHitDto> batch = invocation.getArgument(0);
+            batch.forEach(hit -> delivered.add(hit.getUri()));
+            firstSend.countDown();
+            release.await();
+            return null;
+        }).when(server).sendHits(any());
+
+        try (AsyncStatsClient client = new AsyncStatsClient(server, 100, 1, 10,
+                AsyncStatsClient.OverflowPolicy.DROP_NEWEST, spool, 10_000)) {
+            // Hold the first replay so that eight live hits queue up behind it.
+            assertThat(firstSend.await(2, TimeUnit.SECONDS)).isTrue();
+            client.sendHits(hits("/live/", 8));
+            release.countDown();
+
+            await(() -> client.getSentCount() == 11);
+        }
+
+        assertThat(delivered).containsExactly(
+                "/spool/0",
+                "/live/0", "/live/1", "/live/2", "/live/3",
+                "/spool/1",
+                "/live/4", "/live/5", "/live/6", "/live/7",
+                "/spool/2");
+        assertThat(spool.isEmpty()).isTrue();
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not met within 5 s").isLessThan(deadline);
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private static List<EndpointHitDto> hits(String uriPrefix, int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new EndpointHitDto("ewm-main-service", uriPrefix + i, "10.0.0.1",
+                        TIMESTAMP.plusSeconds(i)))
+                .toList();
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.stats.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Durability and ordering of {@link HitSpool}: a torn tail is cut back on reopen, segments rotate and are capped,
+ * and replay hands out hits oldest first, deleting a segment only once it has been acknowledged to the end.
+ */
+class HitSpoolTest {
+
+    private static final long LARGE = 1024 * 1024;
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayReturnsHitsInOrderAndAckDeletesDrainedSegment() {
+        HitSpool spool = new HitSpool(dir, LARGE, LARGE);
+        spool.append(hits(0, 5));
+
+        HitSpool.Batch first = spool.next(3);
+        assertThat(first.hits()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(hits(0, 3));
+        assertThat(spool.next(3).hits()).as("unacked batch is handed out again")
+                .usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(hits(0, 3));
+
+        spool.ack(first);
+        HitSpool.Batch rest = spool.next(3);
+        assertThat(rest.hits()).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(hits(3, 5));
+        assertThat(spool.isEmpty()).isFalse();
+
+        spool.ack(rest);
+        assertThat(spool.isEmpty()).isTrue();
+        assertThat(segmentFiles()).isEmpty();
+    }
+
+    @Test
+    void tornTailIsCutOnReopenAndLaterAppendsFollowIntactRecords() throws IOException {
+        new HitSpool(dir, LARGE, LARGE).append(hits(0, 5));
+        Path segment = segmentFiles().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment) - 3);
+        }
+
+        HitSpool spool = new HitSpool(dir, LARGE, LARGE);
+        spool.append(hits(5, 6));
+
+        List<EndpointHitDto> expected = new ArrayList<>(hits(0, 4));
+        expected.addAll(hits(5, 6));
+        assertThat(spool.next(100).hits()).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void fullSegmentRotatesAndReplayStartsFromOldest() {
+        HitSpool spool = new HitSpool(dir, 1, LARGE);
+        spool.append(hits(0, 1));
+        spool.append(hits(1, 2));
+        spool.append(hits(2, 3));
+
+        assertThat(segmentFiles()).hasSize(3);
+        assertThat(drain(spool)).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(hits(0, 3));
+    }
+
+    @Test
+    void appendAfterReplayReachedNewestSegmentStartsANewOne() {
+        HitSpool spool = new HitSpool(dir, LARGE, LARGE);
+        spool.append(hits(0, 2));
+
+        HitSpool.Batch batch = spool.next(100);
+        spool.append(hits(2, 3));
+        spool.ack(batch);
+
+        assertThat(segmentFiles()).hasSize(1);
+        assertThat(drain(spool)).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(hits(2, 3));
+    }
+
+    @Test
+    void oldestSegmentsAreDroppedAndCountedPastSizeCap() {
+        HitSpool probe = new HitSpool(dir.resolve("probe"), LARGE, LARGE);
+        probe.append(hits(0, 1));
+        long recordBytes = probe.totalBytes();
+
+        HitSpool spool = new HitSpool(dir, 1, 2 * recordBytes);
+        for (int i = 0; i < 4; i++) {
+            spool.append(hits(i, i + 1));
+        }
+
+        assertThat(spool.getDroppedCount()).isEqualTo(2);
+        assertThat(spool.totalBytes()).isEqualTo(2 * recordBytes);
+        assertThat(drain(spool)).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(hits(2, 4));
+    }
+
+    private static List<EndpointHitDto> drain(HitSpool spool) {
+        List<EndpointHitDto> replayed = new ArrayList<>();
+        while (!spool.isEmpty()) {
+            HitSpool.Batch batch = spool.next(2);
+            replayed.addAll(batch.hits());
+            spool.ack(batch);
+        }
+        return replayed;
+    }
+
+    private List<Path> segmentFiles() {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(Files::isRegularFile).sorted().toList();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static List<EndpointHitDto> hits(int from, int to) {
+        return IntStream.range(from, to)
+                .mapToObj(i -> new EndpointHitDto("ewm-main-service", "/events/" + i, "10.0.0." + i,
+                        TIMESTAMP.plusSeconds(i)))
+                .toList();
+    }
+}
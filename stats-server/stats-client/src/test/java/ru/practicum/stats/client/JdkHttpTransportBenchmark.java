@@ -0,0 +1,183 @@
+package ru.practicum.stats.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Reproducible comparison of the stats transports against a local stub of {@code GET /stats}: the default
+ * {@code HttpURLConnection} factory versus {@link JdkHttpTransport}, with and without gzip. Prints throughput,
+ * latency percentiles and the number of TCP connections the stub accepted.
+ * <p>
+ * Skipped unless {@code -Dbenchmark=true}; run from the repository root with
+ * <pre>
+ * mvn -B -pl stats-server/stats-client -am test -Dbenchmark=true -Dtest=JdkHttpTransportBenchmark \
+ *     -Dsurefire.failIfNoSpecifiedTests=false \
+ *     -DargLine="-Djdk.httpclient.connectionPoolSize=64 -Djdk.httpclient.keepalive.timeout=60"
+ * </pre>
+ * Load: {@value #CALLERS} concurrent callers, each sending {@value #WARMUP} warm-up and {@value #REQUESTS}
+ * measured requests; the stub spends {@value #SERVER_DELAY_MS} ms per request and answers {@value #ROWS} rows
+ * of JSON. The stub speaks HTTP/1.1 only, so the JDK transport runs without HTTP/2 here.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JdkHttpTransportBenchmark {
+
+    private static final int CALLERS = 16;
+    private static final int WARMUP = 200;
+    private static final int REQUESTS = 2_000;
+    private static final int SERVER_DELAY_MS = 1;
+    private static final int ROWS = 200;
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final Set<InetSocketAddress> CONNECTIONS = ConcurrentHashMap.newKeySet();
+    private static HttpServer server;
+    private static byte[] body;
+    private static byte[] gzippedBody;
+
+    @BeforeAll
+    static void startStub() throws IOException {
+        body = payload();
+        gzippedBody = gzip(body);
+        // Without it the stub's separate header and body writes stall on delayed ACKs (~40 ms per request).
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/stats", exchange -> {
+            CONNECTIONS.add(exchange.getRemoteAddress());
+            try {
+                Thread.sleep(SERVER_DELAY_MS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            boolean gzip = "gzip".equals(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            byte[] response = gzip ? gzippedBody : body;
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if (gzip) exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @AfterAll
+    static void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void simpleTransport() throws Exception {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(CONNECT_TIMEOUT);
+        factory.setReadTimeout(READ_TIMEOUT);
+        run("simple", new RestTemplate(factory));
+    }
+
+    @Test
+    void jdkTransport() throws Exception {
+        run("jdk", new RestTemplate(jdkFactory()));
+    }
+
+    @Test
+    void jdkTransportWithGzip() throws Exception {
+        RestTemplate template = new RestTemplate(jdkFactory());
+        template.getInterceptors().add(JdkHttpTransport.gzipResponses());
+        run("jdk+gzip", template);
+    }
+
+    private static ClientHttpRequestFactory jdkFactory() {
+        return JdkHttpTransport.requestFactory(false, CONNECT_TIMEOUT, READ_TIMEOUT);
+    }
+
+    private static void run(String name, RestTemplate template) throws Exception {
+        String url = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/stats";
+        CONNECTIONS.clear();
+        measure(template, url, WARMUP);
+        long started = System.nanoTime();
+        long[] latencies = measure(template, url, REQUESTS);
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf(Locale.ROOT,
+                "%-9s %8.0f req/s  p50 %6.2f ms  p99 %6.2f ms  max %6.2f ms  connections %d%n",
+                name, latencies.length / seconds, millis(latencies, 0.50), millis(latencies, 0.99),
+                millis(latencies, 1.0), CONNECTIONS.size());
+        assertThat(latencies).hasSize(CALLERS * REQUESTS);
+    }
+
+    /** Latencies in nanoseconds of {@code perCaller} requests from each of {@link #CALLERS} threads. */
+    private static long[] measure(RestTemplate template, String url, int perCaller) throws Exception {
+        long[] latencies = new long[CALLERS * perCaller];
+        List<Future<?>> callers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(CALLERS)) {
+            for (int c = 0; c < CALLERS; c++) {
+                int offset = c * perCaller;
+                callers.add(executor.submit(() -> {
+                    for (int i = 0; i < perCaller; i++) {
+                        long start = System.nanoTime();
+                        String response = template.getForObject(url, String.class);
+                        latencies[offset + i] = System.nanoTime() - start;
+                        if (response == null || response.length() != body.length) {
+                            throw new IllegalStateException("Unexpected response from the stub");
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> caller : callers) {
+                caller.get();
+            }
+        }
+        return latencies;
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /** A {@code /stats} answer of {@link #ROWS} ViewStats rows, ASCII only. */
+    private static byte[] payload() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < ROWS; i++) {
+            if (i > 0) json.append(',');
+            json.append("{\"app\":\"ewm-main-service\",\"uri\":\"/events/").append(i)
+                    .append("\",\"hits\":").append(1_000 + i).append('}');
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+}
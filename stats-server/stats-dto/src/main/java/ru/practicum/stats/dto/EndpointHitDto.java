@@ -3,6 +3,7 @@ package ru.practicum.stats.dto;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -16,14 +17,17 @@ public class EndpointHitDto {
 
     /** Application or service name. */
     @NotBlank(message = "app must not be blank")
+    @Size(max = 255, message = "app must be at most 255 characters")
     private String app;
 
     /** Target URI of the request. */
     @NotBlank(message = "uri must not be blank")
+    @Size(max = 2048, message = "uri must be at most 2048 characters")
     private String uri;
 
     /** Client IP address. */
     @NotBlank(message = "ip must not be blank")
+    @Size(max = 45, message = "ip must be at most 45 characters")
     private String ip;
 
     /** Request time in format yyyy-MM-dd HH:mm:ss. */
@@ -0,0 +1,35 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Views of events by id in one window (both bounds inclusive). Used in POST /stats/events/views.
+ * Event {@code id} is counted as hits of URI {@code /events/{id}}, summed over all apps.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventViewsRequest {
+
+    /** URI prefix under which event pages are recorded. */
+    public static final String EVENT_URI_PREFIX = "/events/";
+
+    @NotNull(message = "ids must not be null")
+    private long[] ids;
+
+    @NotNull(message = "start must not be null")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime start;
+
+    @NotNull(message = "end must not be null")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime end;
+
+    /** Count unique IPs instead of all hits. */
+    private boolean unique;
+}
@@ -0,0 +1,11 @@
+package ru.practicum.stats.dto;
+
+import lombok.*;
+
+/** Answer to {@link EventViewsRequest}: {@code views[i]} belongs to {@code ids[i]} of the request; 0 if never viewed. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventViewsResponse {
+    private long[] views;
+}
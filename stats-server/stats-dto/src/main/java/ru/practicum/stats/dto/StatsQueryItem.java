@@ -0,0 +1,30 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/** One window of a POST /stats/query request: hits of a single URI between its own bounds (both inclusive). */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StatsQueryItem {
+
+    @NotBlank(message = "uri must not be blank")
+    private String uri;
+
+    @NotNull(message = "start must not be null")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime start;
+
+    @NotNull(message = "end must not be null")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime end;
+
+    /** Count unique IPs instead of all hits. */
+    private boolean unique;
+}
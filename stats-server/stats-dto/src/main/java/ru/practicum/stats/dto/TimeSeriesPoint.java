@@ -0,0 +1,21 @@
+package ru.practicum.stats.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/** Hits of an endpoint (app + uri) within one time bucket. Used in GET /stats/timeseries. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimeSeriesPoint {
+    private String app;
+    private String uri;
+
+    /** Start of the bucket in format yyyy-MM-dd HH:mm:ss. */
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime bucket;
+
+    private Long hits;
+}
@@ -0,0 +1,18 @@
+package ru.practicum.statsserver;
+
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Entry point of the stats engine without the HTTP layer: ingest, aggregates, partition maintenance and queries.
+ * Started by the stats server and, in {@code stats.mode=embedded}, by the main service in its own context.
+ * The schema is at {@code classpath:db/stats-schema.sql}.
+ */
+@Configuration
+@EnableAutoConfiguration
+@EnableScheduling
+@ComponentScan
+public class StatsEngineConfiguration {
+}
@@ -0,0 +1,8 @@
+package ru.practicum.statsserver.exception;
+
+/** 503 Service Unavailable: the ingest buffer cannot take the batch right now; the client should retry later. */
+public class IngestOverloadedException extends RuntimeException {
+    public IngestOverloadedException(String message) {
+        super(message);
+    }
+}
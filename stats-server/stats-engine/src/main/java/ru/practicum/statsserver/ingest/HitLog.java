@@ -0,0 +1,245 @@
+package ru.practicum.statsserver.ingest;
+
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of hits in fixed-size memory-mapped segment files ({@code segment-<id>.log}).
+ * <p>
+ * Each record is framed as {@code [payload length:int][CRC32C of payload:int][payload]}; unused space in a
+ * segment is zero-filled, so a zero length marks the end. A record cut short by a crash fails the length or
+ * checksum check and ends the segment there, so a torn tail is dropped while every complete record before it
+ * is replayed. Appends go to the page cache and survive a process crash; they reach the disk when a segment
+ * is {@linkplain #seal() sealed} or by the OS writeback. A segment is sealed when it is full, or by the consumer
+ * through {@link #sealIfDue} once it is old or idle enough, so steady traffic does not create a file per drain.
+ * <p>
+ * Only sealed segments are read. Segments found on disk at startup are treated as sealed and new appends
+ * always start a fresh segment. Segment ids only grow, which lets consumers keep a (segment, offset) checkpoint.
+ */
+public final class HitLog implements AutoCloseable {
+
+    private static final int HEADER_BYTES = 8;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final List<Long> sealed = new ArrayList<>();
+    private long nextId;
+    private long activeId;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private long activeOpenedAt;
+    private long lastAppendAt;
+
+    /**
+     * Opens the log in {@code dir}, creating it if needed.
+     * {@code minNextId} keeps new segment ids above those a consumer has already checkpointed.
+     */
+    public HitLog(Path dir, int segmentBytes, long minNextId) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                files.map(HitLog::segmentId)
+                        .filter(id -> id >= 0)
+                        .sorted()
+                        .forEach(sealed::add);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open hit log in " + dir, ex);
+        }
+        this.nextId = Math.max(minNextId, sealed.isEmpty() ? 0 : sealed.get(sealed.size() - 1) + 1);
+    }
+
+    /** Appends one record to the active segment, rolling over to a new segment when it is full. */
+    public synchronized void append(EndpointHitDto hit) {
+        byte[] payload = encode(hit);
+        int frame = HEADER_BYTES + payload.length;
+        if (frame > segmentBytes) {
+            throw new IllegalArgumentException("Hit record of " + frame + " bytes exceeds segment size");
+        }
+        if (active != null && active.remaining() < frame) {
+            seal();
+        }
+        if (active == null) {
+            openActive();
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int start = active.position();
+        active.position(start + HEADER_BYTES);
+        active.put(payload);
+        active.putInt(start + 4, (int) crc.getValue());
+        // Written last, so a record only becomes visible once its payload and checksum are in place.
+        active.putInt(start, payload.length);
+        lastAppendAt = System.nanoTime();
+    }
+
+    /** Flushes the active segment to disk and makes it readable; the next append opens a new segment. */
+    public synchronized void seal() {
+        if (active == null) return;
+        active.force();
+        closeActive();
+        sealed.add(activeId);
+    }
+
+    /**
+     * Seals the active segment if it has been open for at least {@code maxAge} or has had no appends for
+     * {@code maxIdle}. Returns {@code true} if it did.
+     */
+    public synchronized boolean sealIfDue(Duration maxAge, Duration maxIdle) {
+        if (active == null) return false;
+        long now = System.nanoTime();
+        if (now - activeOpenedAt < maxAge.toNanos() && now - lastAppendAt < maxIdle.toNanos()) return false;
+        seal();
+        return true;
+    }
+
+    /** Ids of sealed segments, oldest first. */
+    public synchronized List<Long> sealedSegments() {
+        return List.copyOf(sealed);
+    }
+
+    /**
+     * Replays the records of a sealed segment starting at byte {@code fromOffset}, stopping at the end of data
+     * or at the first torn record. Returns {@code true} if the segment ended cleanly.
+     */
+    public boolean read(long segment, long fromOffset, RecordConsumer consumer) {
+        try (FileChannel channel = FileChannel.open(path(segment), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.position((int) fromOffset);
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int start = buffer.position();
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length == 0) return true;
+                if (length < 0 || length > buffer.remaining()) return false;
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32C crc = new CRC32C();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    buffer.position(start);
+                    return false;
+                }
+                consumer.accept(decode(payload), buffer.position());
+            }
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read hit log segment " + segment, ex);
+        }
+    }
+
+    /** Removes a fully consumed sealed segment. */
+    public synchronized void delete(long segment) {
+        try {
+            Files.deleteIfExists(path(segment));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot delete hit log segment " + segment, ex);
+        }
+        sealed.remove(Long.valueOf(segment));
+    }
+
+    @Override
+    public synchronized void close() {
+        seal();
+    }
+
+    private void openActive() {
+        activeId = nextId++;
+        try {
+            activeChannel = FileChannel.open(path(activeId),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            activeOpenedAt = System.nanoTime();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot create hit log segment " + activeId, ex);
+        }
+    }
+
+    private void closeActive() {
+        try {
+            activeChannel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot close hit log segment " + activeId, ex);
+        } finally {
+            activeChannel = null;
+            active = null;
+        }
+    }
+
+    private Path path(long segment) {
+        return dir.resolve(PREFIX + String.format("%020d", segment) + SUFFIX);
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) return -1;
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static byte[] encode(EndpointHitDto hit) {
+        byte[] app = hit.getApp().getBytes(StandardCharsets.UTF_8);
+        byte[] uri = hit.getUri().getBytes(StandardCharsets.UTF_8);
+        byte[] ip = hit.getIp().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Short.BYTES + app.length + uri.length + ip.length
+                + Long.BYTES + Integer.BYTES);
+        putString(buffer, app);
+        putString(buffer, uri);
+        putString(buffer, ip);
+        buffer.putLong(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(hit.getTimestamp().getNano());
+        return buffer.array();
+    }
+
+    private static EndpointHitDto decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        String app = getString(buffer);
+        String uri = getString(buffer);
+        String ip = getString(buffer);
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        return new EndpointHitDto(app, uri, ip, timestamp);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value.length > 0xFFFF) {
+            throw new IllegalArgumentException("Hit field of " + value.length + " bytes is too long for the log");
+        }
+        buffer.putShort((short) value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] value = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @FunctionalInterface
+    public interface RecordConsumer {
+        /** {@code endOffset} is the byte offset just past the record, usable as a resume point. */
+        void accept(EndpointHitDto hit, long endOffset);
+    }
+}
@@ -8,11 +8,11 @@ public final class StatsMapper {
     private StatsMapper() {
     }
 
-    public static EndpointHit toEntity(EndpointHitDto dto) {
+    public static EndpointHit toEntity(EndpointHitDto dto, Integer appId, Integer uriId) {
         if (dto == null) return null;
         return EndpointHit.builder()
-                .app(dto.getApp())
-                .uri(dto.getUri())
+                .appId(appId)
+                .uriId(uriId)
                 .ip(dto.getIp())
                 .timestamp(dto.getTimestamp())
                 .build();
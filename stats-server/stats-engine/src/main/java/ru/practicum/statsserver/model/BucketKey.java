@@ -0,0 +1,14 @@
+package ru.practicum.statsserver.model;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/** Identifies one pre-aggregated bucket: an (app, uri) pair and the bucket start. */
+public record BucketKey(String app, String uri, LocalDateTime bucket) {
+
+    /** Stable ordering so concurrent writers lock bucket rows in the same sequence. */
+    public static final Comparator<BucketKey> ORDER = Comparator
+            .comparing(BucketKey::app)
+            .thenComparing(BucketKey::uri)
+            .thenComparing(BucketKey::bucket);
+}
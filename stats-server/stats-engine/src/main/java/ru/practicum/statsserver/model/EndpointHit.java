@@ -5,6 +5,10 @@ import lombok.*;
 
 import java.time.LocalDateTime;
 
+/**
+ * Raw hit. The table is range-partitioned by month on {@code timestamp} and managed by db/stats-schema.sql;
+ * app and URI are stored as ids into the {@code apps} and {@code uris} dictionaries.
+ */
 @Entity
 @Table(name = "endpoint_hits")
 @Getter
@@ -18,11 +22,11 @@ public class EndpointHit {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false, length = 255)
-    private String app;
+    @Column(name = "app_id", nullable = false)
+    private Integer appId;
 
-    @Column(nullable = false, length = 2048)
-    private String uri;
+    @Column(name = "uri_id", nullable = false)
+    private Integer uriId;
 
     @Column(nullable = false, length = 45)
     private String ip;
@@ -0,0 +1,28 @@
+package ru.practicum.statsserver.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/** Time-bucket sizes used by pre-aggregated hit data. */
+public enum Granularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    Granularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /** Start of the bucket containing {@code ts}. */
+    public LocalDateTime floor(LocalDateTime ts) {
+        return ts.truncatedTo(unit);
+    }
+
+    /** Start of the first bucket that begins at or after {@code ts}. */
+    public LocalDateTime ceil(LocalDateTime ts) {
+        LocalDateTime floor = floor(ts);
+        return floor.equals(ts) ? floor : floor.plus(1, unit);
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.statsserver.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Part {@code [from, to)} of a queried range together with its source:
+ * the rollup of granularity {@code rollup}, or raw hits when {@code rollup} is {@code null}.
+ */
+public record RangeSlice(Granularity rollup, LocalDateTime from, LocalDateTime to) {
+
+    public boolean isRaw() {
+        return rollup == null;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Value → int id dictionaries used to keep repeated strings out of high-volume rows. */
+@Repository
+@RequiredArgsConstructor
+public class DictionaryJdbcRepository {
+
+    /** Keeps IN-lists well below the driver's bind-parameter limit. */
+    private static final int CHUNK = 1000;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /** Adds values missing from the dictionary. {@code values} should be sorted to keep lock order stable. */
+    public void insertAll(Table table, List<String> values) {
+        if (values.isEmpty()) return;
+        jdbc.batchUpdate("INSERT INTO " + table.table + " (" + table.column + ") VALUES (:value)"
+                        + " ON CONFLICT (" + table.column + ") DO NOTHING",
+                values.stream().map(v -> new MapSqlParameterSource("value", v)).toArray(MapSqlParameterSource[]::new));
+    }
+
+    /** Ids of the given values; values not in the dictionary are absent from the result. */
+    public Map<String, Integer> findIds(Table table, List<String> values) {
+        Map<String, Integer> result = new HashMap<>();
+        for (int from = 0; from < values.size(); from += CHUNK) {
+            jdbc.query("SELECT id, " + table.column + " AS value FROM " + table.table
+                            + " WHERE " + table.column + " IN (:values)",
+                    Map.of("values", values.subList(from, Math.min(from + CHUNK, values.size()))),
+                    rs -> {
+                        result.put(rs.getString("value"), rs.getInt("id"));
+                    });
+        }
+        return result;
+    }
+
+    public enum Table {
+        APPS("apps", "name"),
+        URIS("uris", "uri"),
+        VISITOR_IPS("visitor_ips", "ip");
+
+        private final String table;
+        private final String column;
+
+        Table(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Plain JDBC access to raw hits: multi-row batch inserts and streaming scans.
+ * Rows carry dictionary ids; reads join {@code apps} and {@code uris} back so callers only see strings.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HitJdbcRepository {
+
+    private static final String INSERT_HIT = """
+            INSERT INTO endpoint_hits (app_id, uri_id, ip, timestamp)
+            VALUES (?, ?, ?, ?)
+            """;
+
+    private static final String FROM_HITS = " FROM endpoint_hits h"
+            + " JOIN apps a ON a.id = h.app_id"
+            + " JOIN uris u ON u.id = h.uri_id";
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /** Inserts all hits as a single JDBC batch. */
+    public void insertAll(List<EndpointHit> hits) {
+        if (hits.isEmpty()) return;
+        jdbc.getJdbcTemplate().batchUpdate(INSERT_HIT, hits, hits.size(), (ps, hit) -> {
+            ps.setInt(1, hit.getAppId());
+            ps.setInt(2, hit.getUriId());
+            ps.setString(3, hit.getIp());
+            ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+        });
+    }
+
+    /** Total hits per (app, uri) over {@code [from, to)}; used for the partial edges of rollup reads. */
+    public List<ViewStats> countHits(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        return jdbc.query("SELECT a.name AS app, u.uri AS uri, COUNT(*) AS hits" + FROM_HITS
+                        + " WHERE h.timestamp >= :from AND h.timestamp < :to"
+                        + (urisEmpty ? "" : " AND u.uri IN (:uris)")
+                        + " GROUP BY a.name, u.uri",
+                rangeParams(from, to, uris),
+                (rs, i) -> new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    /** Streams distinct (app, uri, ip) triples of hits in {@code [from, to)}, optionally restricted to {@code uris}. */
+    public void forEachVisitor(LocalDateTime from, LocalDateTime to, List<String> uris, VisitorConsumer consumer) {
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        jdbc.query("SELECT DISTINCT a.name AS app, u.uri AS uri, h.ip" + FROM_HITS
+                        + " WHERE h.timestamp >= :from AND h.timestamp < :to"
+                        + (urisEmpty ? "" : " AND u.uri IN (:uris)"),
+                rangeParams(from, to, uris),
+                rs -> {
+                    consumer.accept(rs.getString("app"), rs.getString("uri"), rs.getString("ip"));
+                });
+    }
+
+    /** Streams distinct (app, uri, visitor id) triples of hits in {@code [from, to)}, resolving IPs via the dictionary. */
+    public void forEachVisitorId(LocalDateTime from, LocalDateTime to, List<String> uris, VisitorIdConsumer consumer) {
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        jdbc.query("SELECT DISTINCT a.name AS app, u.uri AS uri, v.id" + FROM_HITS
+                        + " JOIN visitor_ips v ON v.ip = h.ip"
+                        + " WHERE h.timestamp >= :from AND h.timestamp < :to"
+                        + (urisEmpty ? "" : " AND u.uri IN (:uris)"),
+                rangeParams(from, to, uris),
+                rs -> {
+                    consumer.accept(rs.getString("app"), rs.getString("uri"), rs.getInt("id"));
+                });
+    }
+
+    private static MapSqlParameterSource rangeParams(LocalDateTime from, LocalDateTime to, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        if (uris != null && !uris.isEmpty()) params.addValue("uris", uris);
+        return params;
+    }
+
+    @FunctionalInterface
+    public interface VisitorConsumer {
+        void accept(String app, String uri, String ip);
+    }
+
+    @FunctionalInterface
+    public interface VisitorIdConsumer {
+        void accept(String app, String uri, int visitorId);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/** Position up to which an ingest log has been loaded, committed together with the loaded hits. */
+@Repository
+@RequiredArgsConstructor
+public class IngestCheckpointJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<Checkpoint> find(String log) {
+        return jdbcTemplate.query("SELECT segment, position FROM ingest_log_checkpoint WHERE log = ?",
+                        (rs, i) -> new Checkpoint(rs.getLong("segment"), rs.getLong("position")), log)
+                .stream()
+                .findFirst();
+    }
+
+    public void save(String log, Checkpoint checkpoint) {
+        jdbcTemplate.update("""
+                INSERT INTO ingest_log_checkpoint (log, segment, position) VALUES (?, ?, ?)
+                ON CONFLICT (log) DO UPDATE SET segment = EXCLUDED.segment, position = EXCLUDED.position
+                """, log, checkpoint.segment(), checkpoint.position());
+    }
+
+    /** Byte {@code position} inside log {@code segment}; everything before it is already in the database. */
+    public record Checkpoint(long segment, long position) {
+    }
+}
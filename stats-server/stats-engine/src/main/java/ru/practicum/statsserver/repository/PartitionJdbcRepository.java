@@ -0,0 +1,88 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * DDL around the monthly partitions of {@code endpoint_hits} (named {@code endpoint_hits_pYYYYMM})
+ * and its default partition {@code endpoint_hits_default}, which holds hits outside every monthly partition.
+ */
+@Repository
+@RequiredArgsConstructor
+public class PartitionJdbcRepository {
+
+    private static final String PREFIX = "endpoint_hits_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /** Pre-aggregated tables whose buckets follow raw-hit retention. */
+    public static final List<String> AGGREGATE_TABLES =
+            List.of("hit_rollup_minute", "hit_rollup_hour", "hit_sketch_day", "hit_visitors_day");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Creates the partition for {@code month} unless it exists (see {@code ensure_endpoint_hits_partition}). */
+    public void ensure(YearMonth month) {
+        jdbcTemplate.queryForList("SELECT ensure_endpoint_hits_partition(?)",
+                Timestamp.valueOf(month.atDay(1).atStartOfDay()));
+    }
+
+    /** Months that currently have a partition. */
+    public List<YearMonth> findAll() {
+        return jdbcTemplate.queryForList("""
+                        SELECT c.relname
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        WHERE i.inhparent = 'endpoint_hits'::regclass
+                        """, String.class).stream()
+                .filter(name -> name.startsWith(PREFIX))
+                .map(name -> YearMonth.parse(name.substring(PREFIX.length()), SUFFIX))
+                .toList();
+    }
+
+    /** Months with hits in the default partition, i.e. months that have no partition of their own. */
+    public List<YearMonth> findDefaultMonths() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT date_trunc('month', timestamp) FROM endpoint_hits_default",
+                        Timestamp.class).stream()
+                .map(month -> YearMonth.from(month.toLocalDateTime()))
+                .toList();
+    }
+
+    /**
+     * Detaches the partition for {@code month} from {@code endpoint_hits}. Takes an exclusive lock on the parent, so
+     * it must run in its own short transaction; waiting for the lock is capped by {@code lockTimeoutMs}, after which
+     * it fails instead of queueing every reader and writer behind it. {@code DETACH ... CONCURRENTLY} is not an
+     * option while the table has a default partition.
+     */
+    public void detach(YearMonth month, long lockTimeoutMs) {
+        String partition = PREFIX + SUFFIX.format(month);
+        if (jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition) != Boolean.TRUE) {
+            return;
+        }
+        jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMs);
+        jdbcTemplate.execute("ALTER TABLE endpoint_hits DETACH PARTITION " + partition);
+    }
+
+    /** Drops the table of a month whose partition was {@linkplain #detach detached}; no lock on the parent. */
+    public void drop(YearMonth month) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + PREFIX + SUFFIX.format(month));
+    }
+
+    /** Removes up to {@code limit} hits older than {@code cutoff} from the default partition; returns how many. */
+    public int deleteDefaultBefore(LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update("DELETE FROM endpoint_hits_default WHERE ctid IN"
+                + " (SELECT ctid FROM endpoint_hits_default WHERE timestamp < ? LIMIT ?)", Timestamp.valueOf(cutoff), limit);
+    }
+
+    /** Removes up to {@code limit} buckets of {@code table} older than {@code cutoff}; returns how many. */
+    public int deleteAggregatesBefore(String table, LocalDateTime cutoff, int limit) {
+        return jdbcTemplate.update("DELETE FROM " + table + " WHERE ctid IN"
+                + " (SELECT ctid FROM " + table + " WHERE bucket < ? LIMIT ?)", Timestamp.valueOf(cutoff), limit);
+    }
+}
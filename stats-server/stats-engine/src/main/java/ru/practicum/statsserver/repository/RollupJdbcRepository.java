@@ -0,0 +1,70 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.model.Granularity;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/** Incremental maintenance and range reads of the per-bucket hit rollups (app, uri, bucket, hits). */
+@Repository
+@RequiredArgsConstructor
+public class RollupJdbcRepository {
+
+    /** Granularities that have a rollup table. */
+    public static final List<Granularity> ROLLUPS = List.of(Granularity.MINUTE, Granularity.HOUR);
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /**
+     * Adds per-bucket deltas to the rollup of the given granularity.
+     * Callers pass deltas in a stable order so concurrent batches lock rows in the same sequence.
+     */
+    public void increment(Granularity granularity, List<BucketDelta> deltas) {
+        if (deltas.isEmpty()) return;
+        String table = table(granularity);
+        String sql = "INSERT INTO " + table + " (app, uri, bucket, hits) "
+                + "VALUES (:app, :uri, :bucket, :hits) "
+                + "ON CONFLICT (app, uri, bucket) DO UPDATE SET hits = " + table + ".hits + EXCLUDED.hits";
+        MapSqlParameterSource[] params = deltas.stream()
+                .map(d -> new MapSqlParameterSource()
+                        .addValue("app", d.app())
+                        .addValue("uri", d.uri())
+                        .addValue("bucket", Timestamp.valueOf(d.bucket()))
+                        .addValue("hits", d.hits()))
+                .toArray(MapSqlParameterSource[]::new);
+        jdbc.batchUpdate(sql, params);
+    }
+
+    /** Sums hits per (app, uri) over buckets starting in {@code [from, to)}. */
+    public List<ViewStats> sum(Granularity granularity, LocalDateTime from, LocalDateTime to, List<String> uris) {
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        String sql = "SELECT app, uri, SUM(hits) AS hits FROM " + table(granularity)
+                + " WHERE bucket >= :from AND bucket < :to"
+                + (urisEmpty ? "" : " AND uri IN (:uris)")
+                + " GROUP BY app, uri";
+        Map<String, Object> params = urisEmpty
+                ? Map.of("from", Timestamp.valueOf(from), "to", Timestamp.valueOf(to))
+                : Map.of("from", Timestamp.valueOf(from), "to", Timestamp.valueOf(to), "uris", uris);
+        return jdbc.query(sql, params, (rs, i) ->
+                new ViewStats(rs.getString("app"), rs.getString("uri"), rs.getLong("hits")));
+    }
+
+    static String table(Granularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> "hit_rollup_minute";
+            case HOUR -> "hit_rollup_hour";
+            default -> throw new IllegalArgumentException("No rollup for granularity " + granularity);
+        };
+    }
+
+    /** Hit count to add to one rollup bucket. */
+    public record BucketDelta(String app, String uri, LocalDateTime bucket, long hits) {
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Storage of per-(app, uri, day) HyperLogLog sketches of visitor IPs. */
+@Repository
+@RequiredArgsConstructor
+public class SketchJdbcRepository {
+
+    /** Keeps tuple IN-lists well below the driver's bind-parameter limit. */
+    private static final int CHUNK = 1000;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /**
+     * Loads the sketches for {@code keys} with row locks held until commit, creating missing rows first.
+     * {@code keys} must be sorted with {@link BucketKey#ORDER}.
+     */
+    public Map<BucketKey, HyperLogLog> lockForUpdate(List<BucketKey> keys) {
+        Map<BucketKey, HyperLogLog> result = new HashMap<>();
+        if (keys.isEmpty()) return result;
+
+        jdbc.batchUpdate("""
+                INSERT INTO hit_sketch_day (app, uri, bucket, registers)
+                VALUES (:app, :uri, :bucket, :registers)
+                ON CONFLICT (app, uri, bucket) DO NOTHING
+                """, keys.stream()
+                .map(k -> toParams(k).addValue("registers", new HyperLogLog().toBytes()))
+                .toArray(MapSqlParameterSource[]::new));
+
+        for (int from = 0; from < keys.size(); from += CHUNK) {
+            List<Object[]> tuples = keys.subList(from, Math.min(from + CHUNK, keys.size())).stream()
+                    .map(k -> new Object[]{k.app(), k.uri(), Timestamp.valueOf(k.bucket())})
+                    .toList();
+            jdbc.query("""
+                    SELECT app, uri, bucket, registers
+                    FROM hit_sketch_day
+                    WHERE (app, uri, bucket) IN (:keys)
+                    ORDER BY app, uri, bucket
+                    FOR UPDATE
+                    """, Map.of("keys", tuples), rs -> {
+                BucketKey key = new BucketKey(rs.getString("app"), rs.getString("uri"),
+                        rs.getTimestamp("bucket").toLocalDateTime());
+                result.put(key, HyperLogLog.fromBytes(rs.getBytes("registers")));
+            });
+        }
+        return result;
+    }
+
+    public void updateAll(Map<BucketKey, HyperLogLog> sketches) {
+        if (sketches.isEmpty()) return;
+        jdbc.batchUpdate("""
+                UPDATE hit_sketch_day SET registers = :registers
+                WHERE app = :app AND uri = :uri AND bucket = :bucket
+                """, sketches.entrySet().stream()
+                .map(e -> toParams(e.getKey()).addValue("registers", e.getValue().toBytes()))
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    /** Streams every sketch with a bucket in {@code [from, to)}, optionally restricted to {@code uris}. */
+    public void forEachInRange(LocalDateTime from, LocalDateTime to, List<String> uris, SketchConsumer consumer) {
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        if (!urisEmpty) params.addValue("uris", uris);
+        jdbc.query("SELECT app, uri, registers FROM hit_sketch_day"
+                        + " WHERE bucket >= :from AND bucket < :to"
+                        + (urisEmpty ? "" : " AND uri IN (:uris)"),
+                params,
+                rs -> {
+                    consumer.accept(rs.getString("app"), rs.getString("uri"),
+                            HyperLogLog.fromBytes(rs.getBytes("registers")));
+                });
+    }
+
+    private static MapSqlParameterSource toParams(BucketKey key) {
+        return new MapSqlParameterSource()
+                .addValue("app", key.app())
+                .addValue("uri", key.uri())
+                .addValue("bucket", Timestamp.valueOf(key.bucket()));
+    }
+
+    @FunctionalInterface
+    public interface SketchConsumer {
+        void accept(String app, String uri, HyperLogLog sketch);
+    }
+}
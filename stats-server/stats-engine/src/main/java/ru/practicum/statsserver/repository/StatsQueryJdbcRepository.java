@@ -0,0 +1,135 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.statsserver.model.RangeSlice;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Multi-window reads: many (uri, range) windows are sent as one {@code VALUES} list and joined against
+ * the aggregates, so a whole batch is answered by a single query per source instead of one per window.
+ * Results are keyed by the window's {@code index}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StatsQueryJdbcRepository {
+
+    /** Windows per statement; keeps bind parameters well below the driver's limit. */
+    private static final int CHUNK = 1000;
+
+    /** Rollup slices plus raw edges, summed per window and app. Window columns: idx, uri, src, f, t. */
+    private static final String SUM_HITS = """
+            WITH q (idx, uri, src, f, t) AS (VALUES :windows)
+            SELECT idx, app, SUM(hits) AS hits FROM (
+                SELECT q.idx, r.app, r.hits
+                FROM q JOIN hit_rollup_minute r
+                  ON r.uri = q.uri AND r.bucket >= CAST(q.f AS timestamp) AND r.bucket < CAST(q.t AS timestamp)
+                WHERE q.src = 'MINUTE'
+                UNION ALL
+                SELECT q.idx, r.app, r.hits
+                FROM q JOIN hit_rollup_hour r
+                  ON r.uri = q.uri AND r.bucket >= CAST(q.f AS timestamp) AND r.bucket < CAST(q.t AS timestamp)
+                WHERE q.src = 'HOUR'
+                UNION ALL
+                SELECT q.idx, a.name, COUNT(*)
+                FROM q
+                JOIN uris u ON u.uri = q.uri
+                JOIN endpoint_hits h
+                  ON h.uri_id = u.id
+                 AND h.timestamp >= CAST(q.f AS timestamp) AND h.timestamp < CAST(q.t AS timestamp)
+                JOIN apps a ON a.id = h.app_id
+                WHERE q.src = 'RAW'
+                GROUP BY q.idx, a.name
+            ) s
+            GROUP BY idx, app
+            """;
+
+    private static final String DAY_BITMAPS = """
+            WITH q (idx, uri, f, t) AS (VALUES :windows)
+            SELECT q.idx, v.app, v.visitors
+            FROM q JOIN hit_visitors_day v
+              ON v.uri = q.uri AND v.bucket >= CAST(q.f AS timestamp) AND v.bucket < CAST(q.t AS timestamp)
+            """;
+
+    private static final String RAW_VISITOR_IDS = """
+            WITH q (idx, uri, f, t) AS (VALUES :windows)
+            SELECT DISTINCT q.idx, a.name AS app, vi.id
+            FROM q
+            JOIN uris u ON u.uri = q.uri
+            JOIN endpoint_hits h
+              ON h.uri_id = u.id
+             AND h.timestamp >= CAST(q.f AS timestamp) AND h.timestamp < CAST(q.t AS timestamp)
+            JOIN apps a ON a.id = h.app_id
+            JOIN visitor_ips vi ON vi.ip = h.ip
+            """;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /** Total hits per window and app over the window's slices. */
+    public void sumHits(List<SliceWindow> windows, HitsConsumer consumer) {
+        for (int from = 0; from < windows.size(); from += CHUNK) {
+            List<Object[]> rows = windows.subList(from, Math.min(from + CHUNK, windows.size())).stream()
+                    .map(w -> new Object[]{w.index(), w.uri(),
+                            w.slice().isRaw() ? "RAW" : w.slice().rollup().name(),
+                            Timestamp.valueOf(w.slice().from()), Timestamp.valueOf(w.slice().to())})
+                    .toList();
+            jdbc.query(SUM_HITS, Map.of("windows", rows), rs -> {
+                consumer.accept(rs.getInt("idx"), rs.getString("app"), rs.getLong("hits"));
+            });
+        }
+    }
+
+    /** Daily visitor bitmaps with a bucket inside each window. */
+    public void forEachDayBitmap(List<Window> windows, BitmapConsumer consumer) {
+        for (int from = 0; from < windows.size(); from += CHUNK) {
+            jdbc.query(DAY_BITMAPS, Map.of("windows", toRows(windows, from)), rs -> {
+                consumer.accept(rs.getInt("idx"), rs.getString("app"),
+                        VisitorJdbcRepository.fromBytes(rs.getBytes("visitors")));
+            });
+        }
+    }
+
+    /** Distinct visitor ids of raw hits inside each window. */
+    public void forEachVisitorId(List<Window> windows, VisitorIdConsumer consumer) {
+        for (int from = 0; from < windows.size(); from += CHUNK) {
+            jdbc.query(RAW_VISITOR_IDS, Map.of("windows", toRows(windows, from)), rs -> {
+                consumer.accept(rs.getInt("idx"), rs.getString("app"), rs.getInt("id"));
+            });
+        }
+    }
+
+    private static List<Object[]> toRows(List<Window> windows, int from) {
+        return windows.subList(from, Math.min(from + CHUNK, windows.size())).stream()
+                .map(w -> new Object[]{w.index(), w.uri(), Timestamp.valueOf(w.from()), Timestamp.valueOf(w.to())})
+                .toList();
+    }
+
+    /** Range {@code [from, to)} of one URI, tagged with the position of the request item it belongs to. */
+    public record Window(int index, String uri, LocalDateTime from, LocalDateTime to) {
+    }
+
+    /** One rollup-aligned slice of a window. */
+    public record SliceWindow(int index, String uri, RangeSlice slice) {
+    }
+
+    @FunctionalInterface
+    public interface HitsConsumer {
+        void accept(int index, String app, long hits);
+    }
+
+    @FunctionalInterface
+    public interface BitmapConsumer {
+        void accept(int index, String app, RoaringBitmap visitors);
+    }
+
+    @FunctionalInterface
+    public interface VisitorIdConsumer {
+        void accept(int index, String app, int visitorId);
+    }
+}
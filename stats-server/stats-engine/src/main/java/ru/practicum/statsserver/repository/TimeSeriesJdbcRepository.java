@@ -0,0 +1,102 @@
+package ru.practicum.statsserver.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.dto.TimeSeriesPoint;
+import ru.practicum.statsserver.model.Granularity;
+import ru.practicum.statsserver.model.RangeSlice;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import javax.sql.DataSource;
+
+/**
+ * Per-bucket hit counts streamed row by row, ordered by bucket, app, uri.
+ * Rows are fetched {@code stats.timeseries.fetch-size} at a time through a server-side cursor, which needs
+ * the caller's (read-only) transaction; without one the driver buffers the whole result.
+ */
+@Repository
+public class TimeSeriesJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public TimeSeriesJdbcRepository(DataSource dataSource,
+                                    @Value("${stats.timeseries.fetch-size:1000}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbc = new NamedParameterJdbcTemplate(template);
+    }
+
+    /**
+     * Hits per {@code bucket} over the given slices in a single query: each slice reads its rollup
+     * (or raw hits) and the results are summed per bucket. Rollups must not be coarser than {@code bucket}.
+     */
+    public void streamHits(Granularity bucket, List<RangeSlice> slices, List<String> uris,
+                           Consumer<TimeSeriesPoint> consumer) {
+        if (slices.isEmpty()) return;
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        String unit = unit(bucket);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        if (!urisEmpty) params.addValue("uris", uris);
+        StringBuilder union = new StringBuilder();
+        for (int i = 0; i < slices.size(); i++) {
+            RangeSlice slice = slices.get(i);
+            params.addValue("from" + i, Timestamp.valueOf(slice.from()))
+                    .addValue("to" + i, Timestamp.valueOf(slice.to()));
+            if (i > 0) union.append(" UNION ALL ");
+            if (slice.isRaw()) {
+                union.append("SELECT a.name AS app, u.uri AS uri, date_trunc('").append(unit)
+                        .append("', h.timestamp) AS bucket, COUNT(*) AS hits")
+                        .append(" FROM endpoint_hits h JOIN apps a ON a.id = h.app_id JOIN uris u ON u.id = h.uri_id")
+                        .append(" WHERE h.timestamp >= :from").append(i).append(" AND h.timestamp < :to").append(i)
+                        .append(urisEmpty ? "" : " AND u.uri IN (:uris)")
+                        .append(" GROUP BY 1, 2, 3");
+            } else {
+                union.append("SELECT app, uri, date_trunc('").append(unit).append("', bucket) AS bucket, hits")
+                        .append(" FROM ").append(RollupJdbcRepository.table(slice.rollup()))
+                        .append(" WHERE bucket >= :from").append(i).append(" AND bucket < :to").append(i)
+                        .append(urisEmpty ? "" : " AND uri IN (:uris)");
+            }
+        }
+        jdbc.query("SELECT app, uri, bucket, SUM(hits) AS hits FROM (" + union + ") s"
+                        + " GROUP BY app, uri, bucket ORDER BY bucket, app, uri",
+                params,
+                rs -> {
+                    consumer.accept(new TimeSeriesPoint(rs.getString("app"), rs.getString("uri"),
+                            rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("hits")));
+                });
+    }
+
+    /** Distinct visitor IPs per {@code bucket} over raw hits in {@code [from, to)}. */
+    public void streamUniqueRaw(Granularity bucket, LocalDateTime from, LocalDateTime to, List<String> uris,
+                                Consumer<TimeSeriesPoint> consumer) {
+        if (!from.isBefore(to)) return;
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        if (!urisEmpty) params.addValue("uris", uris);
+        jdbc.query("SELECT a.name AS app, u.uri AS uri, date_trunc('" + unit(bucket) + "', h.timestamp) AS bucket,"
+                        + " COUNT(DISTINCT h.ip) AS hits"
+                        + " FROM endpoint_hits h JOIN apps a ON a.id = h.app_id JOIN uris u ON u.id = h.uri_id"
+                        + " WHERE h.timestamp >= :from AND h.timestamp < :to"
+                        + (urisEmpty ? "" : " AND u.uri IN (:uris)")
+                        + " GROUP BY 1, 2, 3 ORDER BY 3, 1, 2",
+                params,
+                rs -> {
+                    consumer.accept(new TimeSeriesPoint(rs.getString("app"), rs.getString("uri"),
+                            rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("hits")));
+                });
+    }
+
+    /** {@code date_trunc} field name of the granularity. */
+    private static String unit(Granularity granularity) {
+        return granularity.name().toLowerCase(Locale.ROOT);
+    }
+}
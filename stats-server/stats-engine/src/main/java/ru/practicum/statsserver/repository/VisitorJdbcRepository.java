@@ -0,0 +1,147 @@
+package ru.practicum.statsserver.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.statsserver.model.BucketKey;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact unique-visitor storage: per-(app, uri, day) Roaring bitmaps of visitor ids ({@code hit_visitors_day}).
+ * Ids come from the {@code visitor_ips} dictionary, see {@link DictionaryJdbcRepository}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class VisitorJdbcRepository {
+
+    /** Keeps IN-lists well below the driver's bind-parameter limit. */
+    private static final int CHUNK = 1000;
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /**
+     * Loads the bitmaps for {@code keys} with row locks held until commit, creating missing rows first.
+     * {@code keys} must be sorted with {@link BucketKey#ORDER}.
+     */
+    public Map<BucketKey, RoaringBitmap> lockForUpdate(List<BucketKey> keys) {
+        Map<BucketKey, RoaringBitmap> result = new HashMap<>();
+        if (keys.isEmpty()) return result;
+
+        jdbc.batchUpdate("""
+                INSERT INTO hit_visitors_day (app, uri, bucket, visitors)
+                VALUES (:app, :uri, :bucket, :visitors)
+                ON CONFLICT (app, uri, bucket) DO NOTHING
+                """, keys.stream()
+                .map(k -> toParams(k).addValue("visitors", toBytes(new RoaringBitmap())))
+                .toArray(MapSqlParameterSource[]::new));
+
+        for (int from = 0; from < keys.size(); from += CHUNK) {
+            List<Object[]> tuples = keys.subList(from, Math.min(from + CHUNK, keys.size())).stream()
+                    .map(k -> new Object[]{k.app(), k.uri(), Timestamp.valueOf(k.bucket())})
+                    .toList();
+            jdbc.query("""
+                    SELECT app, uri, bucket, visitors
+                    FROM hit_visitors_day
+                    WHERE (app, uri, bucket) IN (:keys)
+                    ORDER BY app, uri, bucket
+                    FOR UPDATE
+                    """, Map.of("keys", tuples), rs -> {
+                BucketKey key = new BucketKey(rs.getString("app"), rs.getString("uri"),
+                        rs.getTimestamp("bucket").toLocalDateTime());
+                result.put(key, fromBytes(rs.getBytes("visitors")));
+            });
+        }
+        return result;
+    }
+
+    public void updateAll(Map<BucketKey, RoaringBitmap> bitmaps) {
+        if (bitmaps.isEmpty()) return;
+        jdbc.batchUpdate("""
+                UPDATE hit_visitors_day SET visitors = :visitors
+                WHERE app = :app AND uri = :uri AND bucket = :bucket
+                """, bitmaps.entrySet().stream()
+                .map(e -> toParams(e.getKey()).addValue("visitors", toBytes(e.getValue())))
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    /** Streams every bitmap with a bucket in {@code [from, to)}, optionally restricted to {@code uris}. */
+    public void forEachInRange(LocalDateTime from, LocalDateTime to, Collection<String> uris,
+                               BitmapConsumer consumer) {
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        if (!urisEmpty) params.addValue("uris", uris);
+        jdbc.query("SELECT app, uri, visitors FROM hit_visitors_day"
+                        + " WHERE bucket >= :from AND bucket < :to"
+                        + (urisEmpty ? "" : " AND uri IN (:uris)"),
+                params,
+                rs -> {
+                    consumer.accept(rs.getString("app"), rs.getString("uri"), fromBytes(rs.getBytes("visitors")));
+                });
+    }
+
+    /** Streams every bitmap with a bucket in {@code [from, to)} ordered by bucket, app, uri. */
+    public void forEachDayInRange(LocalDateTime from, LocalDateTime to, Collection<String> uris,
+                                  DayBitmapConsumer consumer) {
+        boolean urisEmpty = (uris == null || uris.isEmpty());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        if (!urisEmpty) params.addValue("uris", uris);
+        jdbc.query("SELECT app, uri, bucket, visitors FROM hit_visitors_day"
+                        + " WHERE bucket >= :from AND bucket < :to"
+                        + (urisEmpty ? "" : " AND uri IN (:uris)")
+                        + " ORDER BY bucket, app, uri",
+                params,
+                rs -> {
+                    consumer.accept(rs.getString("app"), rs.getString("uri"),
+                            rs.getTimestamp("bucket").toLocalDateTime(), fromBytes(rs.getBytes("visitors")));
+                });
+    }
+
+    private static MapSqlParameterSource toParams(BucketKey key) {
+        return new MapSqlParameterSource()
+                .addValue("app", key.app())
+                .addValue("uri", key.uri())
+                .addValue("bucket", Timestamp.valueOf(key.bucket()));
+    }
+
+    private static byte[] toBytes(RoaringBitmap bitmap) {
+        bitmap.runOptimize();
+        ByteBuffer buffer = ByteBuffer.allocate(bitmap.serializedSizeInBytes());
+        bitmap.serialize(buffer);
+        return buffer.array();
+    }
+
+    static RoaringBitmap fromBytes(byte[] bytes) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        try {
+            bitmap.deserialize(ByteBuffer.wrap(bytes));
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Corrupted visitor bitmap", ex);
+        }
+        return bitmap;
+    }
+
+    @FunctionalInterface
+    public interface BitmapConsumer {
+        void accept(String app, String uri, RoaringBitmap visitors);
+    }
+
+    @FunctionalInterface
+    public interface DayBitmapConsumer {
+        void accept(String app, String uri, LocalDateTime day, RoaringBitmap visitors);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.practicum.statsserver.service;
+
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.model.Granularity;
+import ru.practicum.statsserver.repository.HitJdbcRepository;
+import ru.practicum.statsserver.repository.VisitorJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact unique-IP counts as OR + cardinality of daily visitor bitmaps.
+ * Whole days come from stored bitmaps; visitor ids for the partial days at both edges, and for whole days the
+ * {@link DailyVisitorBackfill} has not filled yet, are read from raw hits.
+ */
+@Component
+@RequiredArgsConstructor
+class BitmapStatsReader {
+
+    private final VisitorJdbcRepository visitorJdbcRepository;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final DailyVisitorBackfill backfill;
+
+    /** Same range semantics as the raw {@code BETWEEN start AND end} query: both bounds inclusive. */
+    List<ViewStats> countUnique(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        // DB timestamps have microsecond precision, so this turns the inclusive end into an exclusive one.
+        LocalDateTime endExclusive = end.plusNanos(1_000);
+        Map<AppUri, RoaringBitmap> visitors = new HashMap<>();
+
+        LocalDateTime dayFrom = Granularity.DAY.ceil(start);
+        LocalDateTime dayTo = backfill.clampToFilledBitmaps(Granularity.DAY.floor(endExclusive));
+        if (dayFrom.isBefore(dayTo)) {
+            visitorJdbcRepository.forEachInRange(dayFrom, dayTo, uris, (app, uri, bitmap) ->
+                    visitors.computeIfAbsent(new AppUri(app, uri), k -> new RoaringBitmap()).or(bitmap));
+            addRaw(visitors, start, dayFrom, uris);
+            addRaw(visitors, dayTo, endExclusive, uris);
+        } else {
+            addRaw(visitors, start, endExclusive, uris);
+        }
+
+        return visitors.entrySet().stream()
+                .filter(e -> !e.getValue().isEmpty())
+                .map(e -> new ViewStats(e.getKey().app(), e.getKey().uri(), e.getValue().getLongCardinality()))
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    private void addRaw(Map<AppUri, RoaringBitmap> visitors, LocalDateTime from, LocalDateTime to, List<String> uris) {
+        if (!from.isBefore(to)) return;
+        hitJdbcRepository.forEachVisitorId(from, to, uris, (app, uri, visitorId) ->
+                visitors.computeIfAbsent(new AppUri(app, uri), k -> new RoaringBitmap()).add(visitorId));
+    }
+
+    private record AppUri(String app, String uri) {
+    }
+}
@@ -0,0 +1,189 @@
+package ru.practicum.statsserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.repository.HitJdbcRepository;
+import ru.practicum.statsserver.repository.PartitionJdbcRepository;
+import ru.practicum.statsserver.repository.SketchJdbcRepository;
+import ru.practicum.statsserver.repository.VisitorJdbcRepository;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Startup backfill of the daily visitor aggregates (HyperLogLog sketches and visitor bitmaps) from raw hits,
+ * for databases that had hits before the aggregates were introduced.
+ * <p>
+ * Runs one day at a time, oldest first, in transactions of at most {@value #FLUSH_EVERY} keys, so live writers
+ * never wait on aggregate rows for longer than one chunk. Progress is kept per aggregate in
+ * {@code aggregate_backfill} and committed with the last chunk of each day, so a restart resumes from the first
+ * unfinished day. Both aggregates are idempotent under repeated inserts, so redoing a day, or merging into rows
+ * already touched by live traffic, is safe.
+ * <p>
+ * The backfill runs on a background thread, so neither the stats server nor an embedding main-service waits for it.
+ * Until it is done, exact unique counts must not trust bitmaps of days it has not reached: readers pass their day
+ * range through {@link #clampToFilledBitmaps} and count the rest from raw hits.
+ */
+@Slf4j
+@Component
+class DailyVisitorBackfill implements ApplicationRunner {
+
+    private static final String SKETCHES = "hit_sketch_day";
+    private static final String BITMAPS = "hit_visitors_day";
+    private static final int FLUSH_EVERY = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HitJdbcRepository hitJdbcRepository;
+    private final PartitionJdbcRepository partitionJdbcRepository;
+    private final SketchJdbcRepository sketchJdbcRepository;
+    private final VisitorJdbcRepository visitorJdbcRepository;
+    private final Dictionaries dictionaries;
+    private final TransactionTemplate transactionTemplate;
+    /** Days before this have complete bitmaps; nothing is trusted until {@link #run} has read the progress. */
+    private volatile LocalDateTime bitmapsFilledUntil = LocalDateTime.MIN;
+
+    DailyVisitorBackfill(JdbcTemplate jdbcTemplate,
+                         HitJdbcRepository hitJdbcRepository,
+                         PartitionJdbcRepository partitionJdbcRepository,
+                         SketchJdbcRepository sketchJdbcRepository,
+                         VisitorJdbcRepository visitorJdbcRepository,
+                         Dictionaries dictionaries,
+                         PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.partitionJdbcRepository = partitionJdbcRepository;
+        this.sketchJdbcRepository = sketchJdbcRepository;
+        this.visitorJdbcRepository = visitorJdbcRepository;
+        this.dictionaries = dictionaries;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** {@code dayTo}, or the first day whose bitmap may still be incomplete if that is earlier. */
+    LocalDateTime clampToFilledBitmaps(LocalDateTime dayTo) {
+        LocalDateTime filledUntil = bitmapsFilledUntil;
+        return dayTo.isAfter(filledUntil) ? filledUntil : dayTo;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<String, LocalDateTime> pending = claimPending();
+        if (!pending.containsKey(BITMAPS)) {
+            bitmapsFilledUntil = LocalDateTime.MAX;
+        } else if (pending.get(BITMAPS) != null) {
+            bitmapsFilledUntil = pending.get(BITMAPS);
+        }
+        if (pending.isEmpty()) return;
+        Thread.ofPlatform().name("visitor-backfill").daemon().start(() -> {
+            try {
+                backfill(pending);
+            } catch (RuntimeException ex) {
+                log.error("Backfill of daily visitor aggregates {} failed, resuming on next start",
+                        pending.keySet(), ex);
+            }
+        });
+    }
+
+    private void backfill(Map<String, LocalDateTime> pending) {
+        log.info("Backfilling daily visitor aggregates {} from raw hits", pending.keySet());
+        LocalDate today = LocalDate.now();
+        List<LocalDate> days = Stream.concat(partitionJdbcRepository.findAll().stream(),
+                        partitionJdbcRepository.findDefaultMonths().stream())
+                .distinct()
+                .sorted()
+                .flatMap(month -> month.atDay(1).datesUntil(month.plusMonths(1).atDay(1)))
+                .filter(day -> !day.isAfter(today))
+                .toList();
+        for (LocalDate day : days) {
+            LocalDateTime start = day.atStartOfDay();
+            Set<String> aggregates = new HashSet<>();
+            pending.forEach((name, resumeFrom) -> {
+                if (resumeFrom == null || !resumeFrom.isAfter(start)) aggregates.add(name);
+            });
+            if (!aggregates.isEmpty()) backfillDay(start, aggregates);
+        }
+        pending.keySet().forEach(name ->
+                jdbcTemplate.update("UPDATE aggregate_backfill SET completed = TRUE WHERE name = ?", name));
+        bitmapsFilledUntil = LocalDateTime.MAX;
+        log.info("Backfill of daily visitor aggregates {} finished", pending.keySet());
+    }
+
+    /** Registers both aggregates and returns the unfinished ones with the day to resume from, {@code null} if none. */
+    private Map<String, LocalDateTime> claimPending() {
+        Map<String, LocalDateTime> pending = new HashMap<>();
+        for (String aggregate : List.of(SKETCHES, BITMAPS)) {
+            jdbcTemplate.update("""
+                    INSERT INTO aggregate_backfill (name) VALUES (?)
+                    ON CONFLICT DO NOTHING
+                    """, aggregate);
+            jdbcTemplate.query("SELECT resume_from FROM aggregate_backfill WHERE name = ? AND NOT completed",
+                    rs -> {
+                        Timestamp resumeFrom = rs.getTimestamp("resume_from");
+                        pending.put(aggregate, (resumeFrom == null) ? null : resumeFrom.toLocalDateTime());
+                    }, aggregate);
+        }
+        return pending;
+    }
+
+    private void backfillDay(LocalDateTime day, Set<String> aggregates) {
+        Map<BucketKey, Set<String>> visitors = new TreeMap<>(BucketKey.ORDER);
+        hitJdbcRepository.forEachVisitor(day, day.plusDays(1), null, (app, uri, ip) ->
+                visitors.computeIfAbsent(new BucketKey(app, uri, day), k -> new HashSet<>()).add(ip));
+        List<BucketKey> keys = new ArrayList<>(visitors.keySet());
+        int stored = 0;
+        do {
+            List<BucketKey> chunk = keys.subList(stored, Math.min(keys.size(), stored + FLUSH_EVERY));
+            stored += chunk.size();
+            store(chunk, visitors, aggregates, (stored < keys.size()) ? null : day.plusDays(1));
+        } while (stored < keys.size());
+    }
+
+    /** Merges one chunk of keys in its own transaction; {@code resumeFrom} is recorded with the day's last chunk. */
+    private void store(List<BucketKey> keys, Map<BucketKey, Set<String>> visitors, Set<String> aggregates,
+                       LocalDateTime resumeFrom) {
+        Map<String, Integer> ids = !aggregates.contains(BITMAPS) ? Map.of()
+                : dictionaries.visitorIps().resolve(keys.stream().flatMap(key -> visitors.get(key).stream()).toList());
+        transactionTemplate.executeWithoutResult(status -> {
+            if (aggregates.contains(SKETCHES)) {
+                Map<BucketKey, HyperLogLog> stored = sketchJdbcRepository.lockForUpdate(keys);
+                keys.forEach(key -> {
+                    HyperLogLog sketch = stored.computeIfAbsent(key, k -> new HyperLogLog());
+                    visitors.get(key).forEach(sketch::add);
+                });
+                sketchJdbcRepository.updateAll(stored);
+            }
+            if (aggregates.contains(BITMAPS)) {
+                Map<BucketKey, RoaringBitmap> stored = visitorJdbcRepository.lockForUpdate(keys);
+                keys.forEach(key -> {
+                    RoaringBitmap bitmap = stored.computeIfAbsent(key, k -> new RoaringBitmap());
+                    visitors.get(key).forEach(ip -> bitmap.add(ids.get(ip).intValue()));
+                });
+                visitorJdbcRepository.updateAll(stored);
+            }
+            if (resumeFrom != null) {
+                aggregates.forEach(name -> jdbcTemplate.update(
+                        "UPDATE aggregate_backfill SET resume_from = ? WHERE name = ?",
+                        Timestamp.valueOf(resumeFrom), name));
+            }
+        });
+        if (resumeFrom != null && aggregates.contains(BITMAPS)) {
+            bitmapsFilledUntil = resumeFrom;
+        }
+    }
+}
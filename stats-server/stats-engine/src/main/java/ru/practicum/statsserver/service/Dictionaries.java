@@ -0,0 +1,39 @@
+package ru.practicum.statsserver.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.statsserver.repository.DictionaryJdbcRepository;
+import ru.practicum.statsserver.repository.DictionaryJdbcRepository.Table;
+
+/** In-process cached dictionaries: app names, URIs (both stored as ids in raw hits) and visitor IPs (bitmap ids). */
+@Component
+class Dictionaries {
+
+    private final Dictionary apps;
+    private final Dictionary uris;
+    private final Dictionary visitorIps;
+
+    Dictionaries(DictionaryJdbcRepository repository,
+                 PlatformTransactionManager transactionManager,
+                 @Value("${stats.dictionary.uri-cache-size:100000}") int uriCacheSize,
+                 @Value("${stats.visitors.id-cache-size:100000}") int ipCacheSize) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        this.apps = new Dictionary(repository, Table.APPS, transactionTemplate, 1_000);
+        this.uris = new Dictionary(repository, Table.URIS, transactionTemplate, uriCacheSize);
+        this.visitorIps = new Dictionary(repository, Table.VISITOR_IPS, transactionTemplate, ipCacheSize);
+    }
+
+    Dictionary apps() {
+        return apps;
+    }
+
+    Dictionary uris() {
+        return uris;
+    }
+
+    Dictionary visitorIps() {
+        return visitorIps;
+    }
+}
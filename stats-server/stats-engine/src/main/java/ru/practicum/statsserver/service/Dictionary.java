@@ -0,0 +1,73 @@
+package ru.practicum.statsserver.service;
+
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import ru.practicum.statsserver.repository.DictionaryJdbcRepository;
+import ru.practicum.statsserver.repository.DictionaryJdbcRepository.Table;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached value → id mapping over one dictionary table.
+ * New ids are committed in their own short transaction, so a cached id always exists in the table
+ * even if the batch that introduced it rolls back. Resolving is refused inside a transaction: a nested one would
+ * hold a second connection while the outer one waits, which can exhaust the pool under load.
+ * Ids are never reassigned, so cached entries never go stale; when the cache outgrows its bound it is simply cleared.
+ */
+class Dictionary {
+
+    private final DictionaryJdbcRepository repository;
+    private final Table table;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxCached;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    Dictionary(DictionaryJdbcRepository repository, Table table, TransactionTemplate transactionTemplate,
+               int maxCached) {
+        this.repository = repository;
+        this.table = table;
+        this.transactionTemplate = transactionTemplate;
+        this.maxCached = maxCached;
+    }
+
+    /** Returns ids for all {@code values}, assigning new ids where needed. */
+    Map<String, Integer> resolve(Collection<String> values) {
+        Map<String, Integer> result = new HashMap<>();
+        List<String> missing = cached(values, result);
+        if (missing.isEmpty()) return result;
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(),
+                "Dictionary ids must be resolved before the write transaction starts");
+
+        Map<String, Integer> loaded = transactionTemplate.execute(status -> {
+            repository.insertAll(table, missing);
+            return repository.findIds(table, missing);
+        });
+        remember(loaded);
+        result.putAll(loaded);
+        return result;
+    }
+
+    private List<String> cached(Collection<String> requested, Map<String, Integer> result) {
+        return requested.stream()
+                .distinct()
+                .filter(value -> {
+                    Integer id = ids.get(value);
+                    if (id != null) result.put(value, id);
+                    return id == null;
+                })
+                .sorted()
+                .toList();
+    }
+
+    private void remember(Map<String, Integer> loaded) {
+        if (ids.size() + loaded.size() > maxCached) {
+            ids.clear();
+        }
+        ids.putAll(loaded);
+    }
+}
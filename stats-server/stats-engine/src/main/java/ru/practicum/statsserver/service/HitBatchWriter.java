@@ -0,0 +1,148 @@
+package ru.practicum.statsserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.statsserver.mapper.StatsMapper;
+import ru.practicum.statsserver.model.BucketKey;
+import ru.practicum.statsserver.model.Granularity;
+import ru.practicum.statsserver.repository.HitJdbcRepository;
+import ru.practicum.statsserver.repository.RollupJdbcRepository;
+import ru.practicum.statsserver.repository.RollupJdbcRepository.BucketDelta;
+import ru.practicum.statsserver.repository.SketchJdbcRepository;
+import ru.practicum.statsserver.repository.VisitorJdbcRepository;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Single write path for hits: persists a batch of raw hits and folds it into the minute/hour rollups,
+ * the daily HyperLogLog sketches and the daily visitor bitmaps in the same transaction,
+ * so aggregates never drift from raw rows. Callers hand over whole buffered batches ({@link HitIngestBuffer}),
+ * so each sketch and bitmap row is locked and rewritten at most once per batch.
+ * <p>
+ * Dictionary ids are resolved before the write transaction opens ({@link #resolve}), so new apps, URIs and IPs
+ * are committed on their own and the write transaction never waits on a second connection.
+ */
+@Slf4j
+@Component
+public class HitBatchWriter {
+
+    private final HitJdbcRepository hitJdbcRepository;
+    private final RollupJdbcRepository rollupJdbcRepository;
+    private final SketchJdbcRepository sketchJdbcRepository;
+    private final VisitorJdbcRepository visitorJdbcRepository;
+    private final Dictionaries dictionaries;
+    private final TransactionTemplate transactionTemplate;
+
+    public HitBatchWriter(HitJdbcRepository hitJdbcRepository,
+                          RollupJdbcRepository rollupJdbcRepository,
+                          SketchJdbcRepository sketchJdbcRepository,
+                          VisitorJdbcRepository visitorJdbcRepository,
+                          Dictionaries dictionaries,
+                          PlatformTransactionManager transactionManager) {
+        this.hitJdbcRepository = hitJdbcRepository;
+        this.rollupJdbcRepository = rollupJdbcRepository;
+        this.sketchJdbcRepository = sketchJdbcRepository;
+        this.visitorJdbcRepository = visitorJdbcRepository;
+        this.dictionaries = dictionaries;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Resolves the batch's dictionary ids, then writes it in one transaction. Must be called outside a transaction. */
+    public void write(List<EndpointHitDto> hits) {
+        if (hits == null || hits.isEmpty()) return;
+        ResolvedIds ids = resolve(hits);
+        transactionTemplate.executeWithoutResult(status -> write(hits, ids));
+    }
+
+    /** Dictionary ids of every app, URI and IP in the batch; each new value is committed before this returns. */
+    public ResolvedIds resolve(List<EndpointHitDto> hits) {
+        return new ResolvedIds(
+                dictionaries.apps().resolve(hits.stream().map(EndpointHitDto::getApp).toList()),
+                dictionaries.uris().resolve(hits.stream().map(EndpointHitDto::getUri).toList()),
+                dictionaries.visitorIps().resolve(hits.stream().map(EndpointHitDto::getIp).toList()));
+    }
+
+    /**
+     * Writes a batch with ids from {@link #resolve} in the caller's transaction. Checked explicitly rather than with
+     * {@code @Transactional(propagation = MANDATORY)}, which {@link #write(List)} would bypass by calling it on
+     * {@code this}.
+     */
+    public void write(List<EndpointHitDto> hits, ResolvedIds ids) {
+        Assert.state(TransactionSynchronizationManager.isActualTransactionActive(),
+                "Hit batch must be written in the caller's transaction");
+        if (hits.isEmpty()) return;
+        log.debug("Writing batch of {} hits", hits.size());
+        hitJdbcRepository.insertAll(hits.stream()
+                .map(hit -> StatsMapper.toEntity(hit, ids.apps().get(hit.getApp()), ids.uris().get(hit.getUri())))
+                .toList());
+        for (Granularity granularity : RollupJdbcRepository.ROLLUPS) {
+            rollupJdbcRepository.increment(granularity, aggregate(hits, granularity));
+        }
+        Map<BucketKey, List<String>> ipsByDay = new TreeMap<>(BucketKey.ORDER);
+        for (EndpointHitDto hit : hits) {
+            BucketKey key = new BucketKey(hit.getApp(), hit.getUri(), Granularity.DAY.floor(hit.getTimestamp()));
+            ipsByDay.computeIfAbsent(key, k -> new ArrayList<>()).add(hit.getIp());
+        }
+        updateSketches(ipsByDay);
+        updateVisitorBitmaps(ipsByDay, ids.visitorIps());
+    }
+
+    /**
+     * Read-modify-write of the daily sketches touched by the batch, under row locks: all IPs of a key are merged
+     * in memory and the row is written once, and only if a register actually changed.
+     */
+    private void updateSketches(Map<BucketKey, List<String>> ipsByDay) {
+        Map<BucketKey, HyperLogLog> sketches = sketchJdbcRepository.lockForUpdate(new ArrayList<>(ipsByDay.keySet()));
+        Map<BucketKey, HyperLogLog> changed = new TreeMap<>(BucketKey.ORDER);
+        ipsByDay.forEach((key, ips) -> {
+            HyperLogLog sketch = sketches.computeIfAbsent(key, k -> new HyperLogLog());
+            boolean grew = false;
+            for (String ip : ips) {
+                grew |= sketch.add(ip);
+            }
+            if (grew) changed.put(key, sketch);
+        });
+        sketchJdbcRepository.updateAll(changed);
+    }
+
+    /** Same as {@link #updateSketches} for the daily visitor bitmaps: one write per key, only if a visitor is new. */
+    private void updateVisitorBitmaps(Map<BucketKey, List<String>> ipsByDay, Map<String, Integer> ids) {
+        Map<BucketKey, RoaringBitmap> bitmaps = visitorJdbcRepository.lockForUpdate(new ArrayList<>(ipsByDay.keySet()));
+        Map<BucketKey, RoaringBitmap> changed = new TreeMap<>(BucketKey.ORDER);
+        ipsByDay.forEach((key, ips) -> {
+            RoaringBitmap bitmap = bitmaps.computeIfAbsent(key, k -> new RoaringBitmap());
+            boolean grew = false;
+            for (String ip : ips) {
+                grew |= bitmap.checkedAdd(ids.get(ip));
+            }
+            if (grew) changed.put(key, bitmap);
+        });
+        visitorJdbcRepository.updateAll(changed);
+    }
+
+    /** Collapses the batch into one delta per bucket, sorted to keep row-lock order stable across writers. */
+    private static List<BucketDelta> aggregate(List<EndpointHitDto> hits, Granularity granularity) {
+        Map<BucketKey, Long> counts = new TreeMap<>(BucketKey.ORDER);
+        for (EndpointHitDto hit : hits) {
+            BucketKey key = new BucketKey(hit.getApp(), hit.getUri(), granularity.floor(hit.getTimestamp()));
+            counts.merge(key, 1L, Long::sum);
+        }
+        return counts.entrySet().stream()
+                .map(e -> new BucketDelta(e.getKey().app(), e.getKey().uri(), e.getKey().bucket(), e.getValue()))
+                .toList();
+    }
+
+    /** Dictionary ids of one batch, keyed by value. */
+    public record ResolvedIds(Map<String, Integer> apps, Map<String, Integer> uris, Map<String, Integer> visitorIps) {
+    }
+}
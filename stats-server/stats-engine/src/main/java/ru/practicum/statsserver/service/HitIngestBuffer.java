@@ -0,0 +1,231 @@
+package ru.practicum.statsserver.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.statsserver.exception.BadRequestException;
+import ru.practicum.statsserver.exception.IngestOverloadedException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded in-memory buffer for incoming hits.
+ * Flushes to {@link HitBatchWriter} when a full batch is collected or on a fixed interval, whichever comes first.
+ * <p>
+ * A batch is accepted whole or not at all: when it does not fit, {@link IngestOverloadedException} (503) tells
+ * the client to retry later, so request threads never wait on a database write to make room.
+ * A batch whose write fails is kept and retried before anything newer, so accepted hits are not dropped
+ * while the database is unavailable; the buffer then fills up and new batches are refused.
+ * A batch the database rejects as invalid ({@link DataIntegrityViolationException}) is not retried: it is
+ * written hit by hit and the hits that are rejected on their own are logged and dropped, so one bad hit
+ * cannot hold up everything queued behind it.
+ * <p>
+ * Single hits ({@link #addAndWait}) are group-committed: the caller waits until the batch holding its hit is
+ * written, and concurrent callers share that batch, so the per-key sketch and bitmap rows are rewritten once
+ * per flush rather than once per hit.
+ */
+@Slf4j
+@Component
+public class HitIngestBuffer {
+
+    /** How long a waiting caller sleeps before trying to lead the next flush itself. */
+    private static final long LEADER_POLL_MS = 5;
+
+    private final HitBatchWriter writer;
+    private final BlockingQueue<Pending> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long waitTimeoutMs;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    /** Batch whose last write failed; retried first. Guarded by {@link #flushLock}. */
+    private List<Pending> failed = List.of();
+
+    public HitIngestBuffer(HitBatchWriter writer,
+                           @Value("${stats.ingest.buffer-capacity:10000}") int capacity,
+                           @Value("${stats.ingest.batch-size:500}") int batchSize,
+                           @Value("${stats.ingest.wait-timeout-ms:5000}") long waitTimeoutMs) {
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.waitTimeoutMs = waitTimeoutMs;
+    }
+
+    /**
+     * Enqueues all hits or none of them. When a batch is ready and no flush is running, the caller writes it;
+     * a failed write is kept for retry and does not fail the call, since the hits are already accepted.
+     */
+    public void addAll(Collection<EndpointHitDto> hits) {
+        if (hits.size() > capacity) {
+            throw new BadRequestException("Batch of " + hits.size() + " hits exceeds the buffer capacity " + capacity);
+        }
+        enqueue(hits.stream().map(hit -> new Pending(hit, null)).toList());
+        if (queue.size() >= batchSize && flushLock.tryLock()) {
+            try {
+                flushOnce();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Enqueues one hit and returns once it is written. The first waiter to find no flush running writes
+     * everything queued so far; the others wait for it. A failed write fails the waiting callers instead of
+     * being retried, and a hit still queued after {@code stats.ingest.wait-timeout-ms} is withdrawn (503).
+     */
+    public void addAndWait(EndpointHitDto hit) {
+        Pending pending = new Pending(hit, new CompletableFuture<>());
+        enqueue(List.of(pending));
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitTimeoutMs);
+        while (!pending.written().isDone()) {
+            if (System.nanoTime() - deadline > 0 && queue.remove(pending)) {
+                throw new IngestOverloadedException("Hit was not written within " + waitTimeoutMs + " ms, retry later");
+            }
+            if (flushLock.tryLock()) {
+                try {
+                    flushOnce();
+                } finally {
+                    flushLock.unlock();
+                }
+            }
+            await(pending.written(), LEADER_POLL_MS);
+        }
+        try {
+            pending.written().get();
+        } catch (ExecutionException ex) {
+            throw (ex.getCause() instanceof RuntimeException re) ? re : new IllegalStateException(ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the hit to be written", ex);
+        }
+    }
+
+    /** Time-based trigger: drains whatever has accumulated since the last flush. */
+    @Scheduled(fixedDelayString = "${stats.ingest.flush-interval-ms:1000}")
+    public void flushScheduled() {
+        flushLock.lock();
+        try {
+            int written;
+            do {
+                written = flushOnce();
+            } while (written > 0);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushScheduled();
+            int lost = failed.size() + queue.size();
+            if (lost > 0) {
+                log.error("Shutting down with {} buffered hits that could not be written", lost);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void enqueue(List<Pending> hits) {
+        synchronized (queue) {
+            // Only flushes remove from the queue concurrently, so the capacity seen here can only grow.
+            if (queue.remainingCapacity() < hits.size()) {
+                throw new IngestOverloadedException("Hit buffer is full, retry later");
+            }
+            queue.addAll(hits);
+        }
+    }
+
+    /**
+     * Writes the failed batch if there is one, otherwise the next batch; returns the number of hits taken off
+     * the buffer, whether written or dropped as invalid.
+     */
+    private int flushOnce() {
+        List<Pending> batch = failed;
+        if (batch.isEmpty()) {
+            batch = new ArrayList<>(batchSize);
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) return 0;
+        }
+        try {
+            writer.write(batch.stream().map(Pending::hit).toList());
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Batch of {} hits was rejected by the database, writing it hit by hit: {}",
+                    batch.size(), ex.getMessage());
+            return writeEach(batch);
+        } catch (RuntimeException ex) {
+            keepForRetry(batch, ex);
+            return 0;
+        }
+        failed = List.of();
+        batch.stream().filter(p -> p.written() != null).forEach(p -> p.written().complete(null));
+        return batch.size();
+    }
+
+    /** Writes a rejected batch one hit at a time, dropping the hits the database rejects on their own. */
+    private int writeEach(List<Pending> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            try {
+                writer.write(List.of(pending.hit()));
+            } catch (DataIntegrityViolationException ex) {
+                log.warn("Dropping hit app={} uri={} ip={} rejected by the database: {}", pending.hit().getApp(),
+                        abbreviate(pending.hit().getUri()), abbreviate(pending.hit().getIp()), ex.getMessage());
+                if (pending.written() != null) {
+                    pending.written().completeExceptionally(new BadRequestException("Hit was rejected: " + ex.getMessage()));
+                }
+                continue;
+            } catch (RuntimeException ex) {
+                keepForRetry(batch.subList(i, batch.size()), ex);
+                return i;
+            }
+            if (pending.written() != null) pending.written().complete(null);
+        }
+        failed = List.of();
+        return batch.size();
+    }
+
+    /** Fails the waiting callers of a batch whose write failed and keeps the acknowledged hits for retry. */
+    private void keepForRetry(List<Pending> batch, RuntimeException ex) {
+        // Waiting callers get the error now; only hits already acknowledged to their clients are retried.
+        batch.stream().filter(p -> p.written() != null).forEach(p -> p.written().completeExceptionally(ex));
+        failed = batch.stream().filter(p -> p.written() == null).toList();
+        log.error("Failed to flush {} buffered hits, {} kept for retry ({} more queued)",
+                batch.size(), failed.size(), queue.size(), ex);
+    }
+
+    private static String abbreviate(String value) {
+        return value == null || value.length() <= 64 ? value : value.substring(0, 64) + "...";
+    }
+
+    private static void await(CompletableFuture<Void> future, long millis) {
+        try {
+            future.get(millis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException ignore) {
+            // the caller checks the future again
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the hit to be written", ex);
+        }
+    }
+
+    /** A buffered hit; {@code written} is set for callers waiting on the write, {@code null} otherwise. */
+    private record Pending(EndpointHitDto hit, CompletableFuture<Void> written) {
+    }
+}
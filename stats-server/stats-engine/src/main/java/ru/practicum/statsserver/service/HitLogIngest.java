@@ -0,0 +1,192 @@
+package ru.practicum.statsserver.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.statsserver.exception.BadRequestException;
+import ru.practicum.statsserver.ingest.HitLog;
+import ru.practicum.statsserver.repository.IngestCheckpointJdbcRepository;
+import ru.practicum.statsserver.repository.IngestCheckpointJdbcRepository.Checkpoint;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Log ingest mode ({@code stats.ingest.mode=log}): hits are appended to the on-disk {@link HitLog} and acknowledged
+ * immediately, then a background drainer bulk-loads sealed segments through {@link HitBatchWriter}. The active
+ * segment is sealed when full, after {@code stats.ingest.log.seal-max-age-ms} or after
+ * {@code stats.ingest.log.seal-idle-ms} without appends, which bounds how long a hit waits to be loaded.
+ * Each loaded batch commits together with the log checkpoint, so after a crash or a database outage loading
+ * resumes exactly after the last committed record; fully loaded segments are deleted.
+ * <p>
+ * Hits are checked against the column sizes before they are appended, since a record the database rejects would
+ * otherwise be retried forever. A batch that is rejected anyway ({@link DataIntegrityViolationException}) is
+ * loaded record by record, and records rejected on their own are logged and skipped past with the checkpoint.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "log")
+public class HitLogIngest {
+
+    /** Column sizes of {@code apps.name}, {@code uris.uri} and {@code visitor_ips.ip}. */
+    private static final int APP_MAX_LENGTH = 255;
+    private static final int URI_MAX_LENGTH = 2048;
+    private static final int IP_MAX_LENGTH = 45;
+
+    private final HitLog hitLog;
+    private final String logName;
+    private final HitBatchWriter writer;
+    private final IngestCheckpointJdbcRepository checkpointRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sealMaxAge;
+    private final Duration sealIdle;
+    private Checkpoint loaded;
+
+    public HitLogIngest(HitBatchWriter writer,
+                        IngestCheckpointJdbcRepository checkpointRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${stats.ingest.log.dir:data/ingest-log}") Path dir,
+                        @Value("${stats.ingest.log.segment-bytes:67108864}") int segmentBytes,
+                        @Value("${stats.ingest.log.seal-max-age-ms:30000}") long sealMaxAgeMs,
+                        @Value("${stats.ingest.log.seal-idle-ms:2000}") long sealIdleMs,
+                        @Value("${stats.ingest.batch-size:500}") int batchSize) {
+        this.writer = writer;
+        this.checkpointRepository = checkpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sealMaxAge = Duration.ofMillis(sealMaxAgeMs);
+        this.sealIdle = Duration.ofMillis(sealIdleMs);
+        this.logName = dir.toAbsolutePath().normalize().toString();
+        this.loaded = checkpointRepository.find(logName).orElse(new Checkpoint(-1, 0));
+        this.hitLog = new HitLog(dir, segmentBytes, loaded.segment() + 1);
+        log.info("Hit ingest log at {}, {} segment(s) pending", logName, hitLog.sealedSegments().size());
+    }
+
+    /** Appends all hits or, if any of them cannot be stored, none of them (400). */
+    public void appendAll(Collection<EndpointHitDto> hits) {
+        hits.forEach(HitLogIngest::validate);
+        hits.forEach(hitLog::append);
+    }
+
+    /** Seals the active segment if it is due and loads every sealed segment past the checkpoint. */
+    @Scheduled(fixedDelayString = "${stats.ingest.log.drain-interval-ms:1000}")
+    public synchronized void drain() {
+        hitLog.sealIfDue(sealMaxAge, sealIdle);
+        loadSealed();
+    }
+
+    @PreDestroy
+    public synchronized void drainOnShutdown() {
+        try {
+            hitLog.seal();
+            loadSealed();
+        } finally {
+            hitLog.close();
+        }
+    }
+
+    private void loadSealed() {
+        for (long segment : hitLog.sealedSegments()) {
+            if (segment < loaded.segment()) {
+                hitLog.delete(segment);
+                continue;
+            }
+            try {
+                load(segment);
+            } catch (RuntimeException ex) {
+                log.error("Failed to load hit log segment {}, will retry from checkpoint {}", segment, loaded, ex);
+                return;
+            }
+            hitLog.delete(segment);
+        }
+    }
+
+    private void load(long segment) {
+        long from = (segment == loaded.segment()) ? loaded.position() : 0;
+        List<Entry> batch = new ArrayList<>(batchSize);
+        long[] end = {from};
+        boolean clean = hitLog.read(segment, from, (hit, endOffset) -> {
+            batch.add(new Entry(hit, endOffset));
+            end[0] = endOffset;
+            if (batch.size() >= batchSize) {
+                commit(segment, batch);
+            }
+        });
+        commit(segment, batch);
+        if (!clean) {
+            log.warn("Hit log segment {} has a torn record at offset {}; the incomplete tail was discarded",
+                    segment, end[0]);
+        }
+    }
+
+    /** Loads a batch together with the checkpoint past its last record, falling back to one record at a time. */
+    private void commit(long segment, List<Entry> batch) {
+        if (batch.isEmpty()) return;
+        try {
+            commit(batch.stream().map(Entry::hit).toList(),
+                    new Checkpoint(segment, batch.get(batch.size() - 1).endOffset()));
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Batch of {} hits from log segment {} was rejected by the database, loading it record by record: {}",
+                    batch.size(), segment, ex.getMessage());
+            for (Entry entry : batch) {
+                commitOne(segment, entry);
+            }
+        }
+        batch.clear();
+    }
+
+    /** Loads one record, or skips it with the checkpoint if the database rejects it. */
+    private void commitOne(long segment, Entry entry) {
+        Checkpoint checkpoint = new Checkpoint(segment, entry.endOffset());
+        try {
+            commit(List.of(entry.hit()), checkpoint);
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("Skipping hit log record of segment {} ending at offset {} rejected by the database: {}",
+                    segment, entry.endOffset(), ex.getMessage());
+            transactionTemplate.executeWithoutResult(status -> checkpointRepository.save(logName, checkpoint));
+            loaded = checkpoint;
+        }
+    }
+
+    private void commit(List<EndpointHitDto> hits, Checkpoint checkpoint) {
+        HitBatchWriter.ResolvedIds ids = writer.resolve(hits);
+        transactionTemplate.executeWithoutResult(status -> {
+            writer.write(hits, ids);
+            checkpointRepository.save(logName, checkpoint);
+        });
+        loaded = checkpoint;
+    }
+
+    private static void validate(EndpointHitDto hit) {
+        requireLength("app", hit.getApp(), APP_MAX_LENGTH);
+        requireLength("uri", hit.getUri(), URI_MAX_LENGTH);
+        requireLength("ip", hit.getIp(), IP_MAX_LENGTH);
+        if (hit.getTimestamp() == null) {
+            throw new BadRequestException("timestamp must not be null");
+        }
+    }
+
+    private static void requireLength(String field, String value, int maxLength) {
+        if (value == null || value.isBlank()) {
+            throw new BadRequestException(field + " must not be blank");
+        }
+        if (value.length() > maxLength) {
+            throw new BadRequestException(field + " must be at most " + maxLength + " characters");
+        }
+    }
+
+    /** A record read from the log and the offset just past it. */
+    private record Entry(EndpointHitDto hit, long endOffset) {
+    }
+}
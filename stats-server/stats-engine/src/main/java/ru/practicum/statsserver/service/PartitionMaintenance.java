@@ -0,0 +1,104 @@
+package ru.practicum.statsserver.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.statsserver.repository.PartitionJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Keeps the monthly partitions of {@code endpoint_hits} in shape, off the write path:
+ * creates every month from the retention cutoff (or the current month when nothing expires) to
+ * {@code stats.partitions.months-ahead} months ahead, and drops months past the retention period together
+ * with their aggregates. Hits outside that window go to the default partition instead of triggering DDL,
+ * so a client timestamp can never make a writer create a table.
+ * <p>
+ * Expiry never holds a lock on {@code endpoint_hits} for long: each partition is detached in a short transaction of
+ * its own and dropped in another, and expired rows of the default partition and of the aggregate tables are
+ * deleted in transactions of at most {@code stats.partitions.delete-batch-size} rows. A detach that cannot get its
+ * lock within {@code stats.partitions.lock-timeout-ms} is retried on the next run.
+ */
+@Slf4j
+@Component
+class PartitionMaintenance {
+
+    private final PartitionJdbcRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final int deleteBatchSize;
+    private final long lockTimeoutMs;
+
+    PartitionMaintenance(PartitionJdbcRepository repository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${stats.partitions.months-ahead:2}") int monthsAhead,
+                         @Value("${stats.partitions.retention-months:0}") int retentionMonths,
+                         @Value("${stats.partitions.delete-batch-size:10000}") int deleteBatchSize,
+                         @Value("${stats.partitions.lock-timeout-ms:5000}") long lockTimeoutMs) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.deleteBatchSize = deleteBatchSize;
+        this.lockTimeoutMs = lockTimeoutMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${stats.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        YearMonth current = YearMonth.now();
+        YearMonth oldestKept = (retentionMonths > 0) ? current.minusMonths(retentionMonths) : current;
+        YearMonth newest = current.plusMonths(monthsAhead);
+        for (YearMonth month = oldestKept; !month.isAfter(newest); month = month.plusMonths(1)) {
+            YearMonth target = month;
+            transactionTemplate.executeWithoutResult(status -> repository.ensure(target));
+        }
+        if (retentionMonths > 0) {
+            dropExpired(oldestKept);
+        }
+    }
+
+    /** Drops every partition for a month before {@code oldestKept}, then the older rows left elsewhere. */
+    private void dropExpired(YearMonth oldestKept) {
+        LocalDateTime cutoff = oldestKept.atDay(1).atStartOfDay();
+        for (YearMonth month : repository.findAll()) {
+            if (!month.isBefore(oldestKept)) continue;
+            log.info("Dropping endpoint_hits partition for {} (retention {} months)", month, retentionMonths);
+            try {
+                transactionTemplate.executeWithoutResult(status -> repository.detach(month, lockTimeoutMs));
+            } catch (DataAccessException ex) {
+                log.warn("Could not detach endpoint_hits partition for {}, retrying on the next run: {}",
+                        month, ex.getMessage());
+                continue;
+            }
+            transactionTemplate.executeWithoutResult(status -> repository.drop(month));
+        }
+        long deleted = deleteInBatches(limit -> repository.deleteDefaultBefore(cutoff, limit));
+        for (String table : PartitionJdbcRepository.AGGREGATE_TABLES) {
+            deleted += deleteInBatches(limit -> repository.deleteAggregatesBefore(table, cutoff, limit));
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} expired rows before {}", deleted, cutoff);
+        }
+    }
+
+    /** Runs {@code delete} in transactions of at most {@code deleteBatchSize} rows until nothing is left. */
+    private long deleteInBatches(IntUnaryOperator delete) {
+        long total = 0;
+        int deleted;
+        do {
+            deleted = transactionTemplate.execute(status -> delete.applyAsInt(deleteBatchSize));
+            total += deleted;
+        } while (deleted >= deleteBatchSize);
+        return total;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.statsserver.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.model.Granularity;
+import ru.practicum.statsserver.model.RangeSlice;
+import ru.practicum.statsserver.repository.HitJdbcRepository;
+import ru.practicum.statsserver.repository.RollupJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers non-unique hit counts from the rollups.
+ * The range is split into whole hours (hour rollup), whole minutes around them (minute rollup)
+ * and the partial minutes at both edges, which are the only part read from raw hits.
+ */
+@Component
+@RequiredArgsConstructor
+class RollupStatsReader {
+
+    private final RollupJdbcRepository rollupJdbcRepository;
+    private final HitJdbcRepository hitJdbcRepository;
+
+    /** Same semantics as the raw {@code BETWEEN start AND end} query: both bounds inclusive. */
+    List<ViewStats> countHits(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        // DB timestamps have microsecond precision, so this turns the inclusive end into an exclusive one.
+        LocalDateTime endExclusive = end.plusNanos(1_000);
+        Map<AppUri, Long> totals = new LinkedHashMap<>();
+        for (RangeSlice slice : slices(start, endExclusive, Granularity.HOUR)) {
+            merge(totals, slice.isRaw()
+                    ? hitJdbcRepository.countHits(slice.from(), slice.to(), uris)
+                    : rollupJdbcRepository.sum(slice.rollup(), slice.from(), slice.to(), uris));
+        }
+        return sorted(totals);
+    }
+
+    /**
+     * Splits {@code [start, endExclusive)} into rollup-aligned slices, using rollups no coarser than
+     * {@code coarsest}: whole hours (if allowed), whole minutes around them and the partial minutes at both edges.
+     */
+    static List<RangeSlice> slices(LocalDateTime start, LocalDateTime endExclusive, Granularity coarsest) {
+        List<RangeSlice> slices = new ArrayList<>();
+        LocalDateTime minuteFrom = Granularity.MINUTE.ceil(start);
+        LocalDateTime minuteTo = Granularity.MINUTE.floor(endExclusive);
+        if (!minuteFrom.isBefore(minuteTo)) {
+            add(slices, null, start, endExclusive);
+            return slices;
+        }
+        add(slices, null, start, minuteFrom);
+
+        LocalDateTime hourFrom = Granularity.HOUR.ceil(minuteFrom);
+        LocalDateTime hourTo = Granularity.HOUR.floor(minuteTo);
+        if (coarsest != Granularity.MINUTE && hourFrom.isBefore(hourTo)) {
+            add(slices, Granularity.MINUTE, minuteFrom, hourFrom);
+            add(slices, Granularity.HOUR, hourFrom, hourTo);
+            add(slices, Granularity.MINUTE, hourTo, minuteTo);
+        } else {
+            add(slices, Granularity.MINUTE, minuteFrom, minuteTo);
+        }
+        add(slices, null, minuteTo, endExclusive);
+        return slices;
+    }
+
+    private static void add(List<RangeSlice> slices, Granularity rollup, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            slices.add(new RangeSlice(rollup, from, to));
+        }
+    }
+
+    private static void merge(Map<AppUri, Long> totals, List<ViewStats> rows) {
+        for (ViewStats vs : rows) {
+            totals.merge(new AppUri(vs.getApp(), vs.getUri()), vs.getHits(), Long::sum);
+        }
+    }
+
+    private static List<ViewStats> sorted(Map<AppUri, Long> totals) {
+        return totals.entrySet().stream()
+                .map(e -> new ViewStats(e.getKey().app(), e.getKey().uri(), e.getValue()))
+                .sorted(Comparator.comparing(ViewStats::getHits).reversed())
+                .toList();
+    }
+
+    private record AppUri(String app, String uri) {
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.statsserver.service;
+
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.StatsQueryItem;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.model.Granularity;
+import ru.practicum.statsserver.model.RangeSlice;
+import ru.practicum.statsserver.repository.StatsQueryJdbcRepository;
+import ru.practicum.statsserver.repository.StatsQueryJdbcRepository.SliceWindow;
+import ru.practicum.statsserver.repository.StatsQueryJdbcRepository.Window;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Answers a batch of independent (uri, start, end, unique) windows with one query per source:
+ * total hits from rollup slices and raw edges, exact unique counts from daily visitor bitmaps and raw edges
+ * (and raw days the {@link DailyVisitorBackfill} has not filled yet).
+ * Window semantics match {@code GET /stats} with a single URI.
+ */
+@Component
+@RequiredArgsConstructor
+class StatsQueryReader {
+
+    private final StatsQueryJdbcRepository statsQueryJdbcRepository;
+    private final DailyVisitorBackfill backfill;
+
+    /** One result list per item, in request order, each sorted by hits descending. */
+    List<List<ViewStats>> query(List<StatsQueryItem> items) {
+        List<SliceWindow> slices = new ArrayList<>();
+        List<Window> days = new ArrayList<>();
+        List<Window> raw = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            StatsQueryItem item = items.get(i);
+            // DB timestamps have microsecond precision, so this turns the inclusive end into an exclusive one.
+            LocalDateTime endExclusive = item.getEnd().plusNanos(1_000);
+            if (!item.isUnique()) {
+                for (RangeSlice slice : RollupStatsReader.slices(item.getStart(), endExclusive, Granularity.HOUR)) {
+                    slices.add(new SliceWindow(i, item.getUri(), slice));
+                }
+                continue;
+            }
+            LocalDateTime dayFrom = Granularity.DAY.ceil(item.getStart());
+            LocalDateTime dayTo = backfill.clampToFilledBitmaps(Granularity.DAY.floor(endExclusive));
+            if (dayFrom.isBefore(dayTo)) {
+                days.add(new Window(i, item.getUri(), dayFrom, dayTo));
+                addWindow(raw, i, item.getUri(), item.getStart(), dayFrom);
+                addWindow(raw, i, item.getUri(), dayTo, endExclusive);
+            } else {
+                addWindow(raw, i, item.getUri(), item.getStart(), endExclusive);
+            }
+        }
+
+        List<Map<String, Long>> hits = new ArrayList<>(items.size());
+        List<Map<String, RoaringBitmap>> visitors = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            hits.add(new HashMap<>());
+            visitors.add(new HashMap<>());
+        }
+        statsQueryJdbcRepository.sumHits(slices, (index, app, count) ->
+                hits.get(index).merge(app, count, Long::sum));
+        statsQueryJdbcRepository.forEachDayBitmap(days, (index, app, bitmap) ->
+                visitors.get(index).computeIfAbsent(app, k -> new RoaringBitmap()).or(bitmap));
+        statsQueryJdbcRepository.forEachVisitorId(raw, (index, app, visitorId) ->
+                visitors.get(index).computeIfAbsent(app, k -> new RoaringBitmap()).add(visitorId));
+
+        List<List<ViewStats>> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            String uri = items.get(i).getUri();
+            List<ViewStats> stats = new ArrayList<>();
+            hits.get(i).forEach((app, count) -> stats.add(new ViewStats(app, uri, count)));
+            visitors.get(i).forEach((app, bitmap) -> {
+                if (!bitmap.isEmpty()) stats.add(new ViewStats(app, uri, bitmap.getLongCardinality()));
+            });
+            stats.sort(Comparator.comparing(ViewStats::getHits).reversed());
+            results.add(stats);
+        }
+        return results;
+    }
+
+    private static void addWindow(List<Window> windows, int index, String uri, LocalDateTime from, LocalDateTime to) {
+        if (from.isBefore(to)) {
+            windows.add(new Window(index, uri, from, to));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.statsserver.service;
+
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.EventViewsRequest;
+import ru.practicum.stats.dto.EventViewsResponse;
+import ru.practicum.stats.dto.StatsQueryItem;
+import ru.practicum.stats.dto.TimeSeriesPoint;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.model.Granularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/** Business API for statistics operations. */
+public interface StatsService {
+    /** Persist a new endpoint hit. */
+    void saveHit(EndpointHitDto hit);
+
+    /** Accept a batch of hits; they are buffered and persisted asynchronously in JDBC batches. */
+    void saveHits(List<EndpointHitDto> hits);
+
+    /**
+     * Query aggregated stats (total or unique by IP) for an optional set of URIs.
+     * Exact unique counts come from daily visitor bitmaps; with {@code approximate}, unique counts are estimated from HyperLogLog sketches (≈1.6% standard error).
+     */
+    List<ViewStats> getStats(LocalDateTime start,
+                             LocalDateTime end,
+                             List<String> uris,
+                             boolean unique,
+                             boolean approximate);
+
+    /** Stream per-bucket counts (total or unique by IP) to {@code consumer}, ordered by bucket. */
+    void streamTimeSeries(LocalDateTime start,
+                          LocalDateTime end,
+                          List<String> uris,
+                          Granularity bucket,
+                          boolean unique,
+                          Consumer<TimeSeriesPoint> consumer);
+
+    /** Answer many independent (uri, start, end, unique) windows at once; one result list per item, in order. */
+    List<List<ViewStats>> queryStats(List<StatsQueryItem> items);
+
+    /** Views per event id, aligned with the request ids. */
+    EventViewsResponse getEventViews(EventViewsRequest request);
+}
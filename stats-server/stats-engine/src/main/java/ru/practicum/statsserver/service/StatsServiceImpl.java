@@ -0,0 +1,111 @@
+package ru.practicum.statsserver.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.EventViewsRequest;
+import ru.practicum.stats.dto.EventViewsResponse;
+import ru.practicum.stats.dto.StatsQueryItem;
+import ru.practicum.stats.dto.TimeSeriesPoint;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.model.Granularity;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StatsServiceImpl implements StatsService {
+
+    private final HitIngestBuffer buffer;
+    private final RollupStatsReader rollupStatsReader;
+    private final SketchStatsReader sketchStatsReader;
+    private final BitmapStatsReader bitmapStatsReader;
+    private final TimeSeriesReader timeSeriesReader;
+    private final StatsQueryReader statsQueryReader;
+    /** Present in log ingest mode; writes then go through the on-disk log instead of the database. */
+    private final Optional<HitLogIngest> hitLog;
+
+    @Override
+    public void saveHit(EndpointHitDto hit) {
+        log.debug("Saving hit: app={}, uri={}, ts={}", hit.getApp(), hit.getUri(), hit.getTimestamp());
+        if (hitLog.isPresent()) {
+            hitLog.get().appendAll(List.of(hit));
+        } else {
+            buffer.addAndWait(hit);
+        }
+    }
+
+    @Override
+    public void saveHits(List<EndpointHitDto> hits) {
+        log.debug("Buffering batch of {} hits", hits.size());
+        if (hitLog.isPresent()) {
+            hitLog.get().appendAll(hits);
+        } else {
+            buffer.addAll(hits);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ViewStats> getStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                    boolean unique, boolean approximate) {
+        log.debug("Query stats: start={}, end={}, unique={}, approximate={}, uris={}",
+                start, end, unique, approximate, uris);
+        if (!unique) {
+            return rollupStatsReader.countHits(start, end, uris);
+        }
+        return approximate
+                ? sketchStatsReader.countUnique(start, end, uris)
+                : bitmapStatsReader.countUnique(start, end, uris);
+    }
+
+    /** Read-only transaction: the PostgreSQL driver only honours the fetch size with autocommit off. */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamTimeSeries(LocalDateTime start, LocalDateTime end, List<String> uris,
+                                 Granularity bucket, boolean unique, Consumer<TimeSeriesPoint> consumer) {
+        log.debug("Query time series: start={}, end={}, bucket={}, unique={}, uris={}",
+                start, end, bucket, unique, uris);
+        timeSeriesReader.stream(start, end, uris, bucket, unique, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<List<ViewStats>> queryStats(List<StatsQueryItem> items) {
+        log.debug("Query stats for {} windows", items.size());
+        return statsQueryReader.query(items);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EventViewsResponse getEventViews(EventViewsRequest request) {
+        long[] ids = request.getIds();
+        log.debug("Query views of {} events: start={}, end={}, unique={}",
+                ids.length, request.getStart(), request.getEnd(), request.isUnique());
+        long[] views = new long[ids.length];
+        if (ids.length == 0) return new EventViewsResponse(views);
+
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < ids.length; i++) {
+            positions.putIfAbsent(EventViewsRequest.EVENT_URI_PREFIX + ids[i], i);
+        }
+        List<ViewStats> stats = getStats(request.getStart(), request.getEnd(),
+                List.copyOf(positions.keySet()), request.isUnique(), false);
+        for (ViewStats vs : stats) {
+            Integer position = positions.get(vs.getUri());
+            if (position != null) views[position] += vs.getHits();
+        }
+        for (int i = 0; i < ids.length; i++) {
+            views[i] = views[positions.get(EventViewsRequest.EVENT_URI_PREFIX + ids[i])];
+        }
+        return new EventViewsResponse(views);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.practicum.statsserver.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.dto.TimeSeriesPoint;
+import ru.practicum.statsserver.model.Granularity;
+import ru.practicum.statsserver.repository.TimeSeriesJdbcRepository;
+import ru.practicum.statsserver.repository.VisitorJdbcRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams per-bucket counts ordered by bucket, app, uri; buckets without hits are omitted.
+ * Total hits come from the minute/hour rollups with raw hits only for partial minutes at the edges.
+ * Unique daily counts come from the visitor bitmaps, except days the {@link DailyVisitorBackfill} has not filled yet;
+ * unique minute/hour counts have no aggregate and are read raw.
+ */
+@Component
+@RequiredArgsConstructor
+class TimeSeriesReader {
+
+    private final TimeSeriesJdbcRepository timeSeriesJdbcRepository;
+    private final VisitorJdbcRepository visitorJdbcRepository;
+    private final DailyVisitorBackfill backfill;
+
+    /** Both bounds inclusive; the first and last buckets only count hits inside the range. */
+    void stream(LocalDateTime start, LocalDateTime end, List<String> uris, Granularity bucket, boolean unique,
+                Consumer<TimeSeriesPoint> consumer) {
+        // DB timestamps have microsecond precision, so this turns the inclusive end into an exclusive one.
+        LocalDateTime endExclusive = end.plusNanos(1_000);
+        if (!unique) {
+            Granularity coarsest = (bucket == Granularity.MINUTE) ? Granularity.MINUTE : Granularity.HOUR;
+            timeSeriesJdbcRepository.streamHits(bucket,
+                    RollupStatsReader.slices(start, endExclusive, coarsest), uris, consumer);
+            return;
+        }
+        LocalDateTime dayFrom = Granularity.DAY.ceil(start);
+        LocalDateTime dayTo = backfill.clampToFilledBitmaps(Granularity.DAY.floor(endExclusive));
+        if (bucket != Granularity.DAY || !dayFrom.isBefore(dayTo)) {
+            timeSeriesJdbcRepository.streamUniqueRaw(bucket, start, endExclusive, uris, consumer);
+            return;
+        }
+        timeSeriesJdbcRepository.streamUniqueRaw(bucket, start, dayFrom, uris, consumer);
+        visitorJdbcRepository.forEachDayInRange(dayFrom, dayTo, uris, (app, uri, day, visitors) -> {
+            if (!visitors.isEmpty()) {
+                consumer.accept(new TimeSeriesPoint(app, uri, day, visitors.getLongCardinality()));
+            }
+        });
+        timeSeriesJdbcRepository.streamUniqueRaw(bucket, dayTo, endExclusive, uris, consumer);
+    }
+}
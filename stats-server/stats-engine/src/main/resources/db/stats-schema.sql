@@ -0,0 +1,175 @@
+-- Raw hits, range-partitioned by month on timestamp so range queries prune to the overlapping months
+-- and retention drops whole partitions instead of deleting rows.
+-- PartitionMaintenance creates the monthly partitions of a bounded window ahead of time; hits outside it
+-- land in the default partition, whose rows move to their month when that partition is created.
+
+-- Creates the monthly partition holding ts if it does not exist yet, moving the rows of that month out of
+-- the default partition. Safe to call concurrently.
+CREATE OR REPLACE FUNCTION ensure_endpoint_hits_partition(ts TIMESTAMP) RETURNS VOID AS '
+DECLARE
+    month_start TIMESTAMP := date_trunc(''month'', ts);
+    month_end   TIMESTAMP := date_trunc(''month'', ts) + INTERVAL ''1 month'';
+    part        TEXT      := ''endpoint_hits_p'' || to_char(ts, ''YYYYMM'');
+BEGIN
+    IF to_regclass(part) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    IF to_regclass(''endpoint_hits_default'') IS NULL THEN
+        EXECUTE format(''CREATE TABLE %I PARTITION OF endpoint_hits FOR VALUES FROM (%L) TO (%L)'',
+                       part, month_start, month_end);
+        RETURN;
+    END IF;
+    -- Keep hits of this month from landing in the default partition while its rows are moved.
+    LOCK TABLE endpoint_hits_default IN SHARE ROW EXCLUSIVE MODE;
+    EXECUTE format(''CREATE TABLE %I (LIKE endpoint_hits INCLUDING DEFAULTS)'', part);
+    EXECUTE format(''WITH moved AS (DELETE FROM endpoint_hits_default WHERE timestamp >= %L AND timestamp < %L''
+                   || '' RETURNING *) INSERT INTO %I SELECT * FROM moved'', month_start, month_end, part);
+    EXECUTE format(''ALTER TABLE endpoint_hits ATTACH PARTITION %I FOR VALUES FROM (%L) TO (%L)'',
+                   part, month_start, month_end);
+EXCEPTION
+    WHEN duplicate_table OR unique_violation THEN NULL;
+END' LANGUAGE plpgsql;
+
+-- Dictionaries of app names and URIs; raw hits store only their int ids.
+CREATE TABLE IF NOT EXISTS apps (
+    id   SERIAL       PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS uris (
+    id  SERIAL        PRIMARY KEY,
+    uri VARCHAR(2048) NOT NULL UNIQUE
+);
+
+-- An endpoint_hits table with inline app/uri strings (plain or partitioned) is moved aside, together with
+-- its partitions and named index, and migrated below.
+DO '
+DECLARE
+    part TEXT;
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_schema = current_schema() AND table_name = ''endpoint_hits'' AND column_name = ''app'') THEN
+        FOR part IN SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                    WHERE i.inhparent = ''endpoint_hits''::regclass LOOP
+            EXECUTE format(''ALTER TABLE %I RENAME TO %I'', part, part || ''_legacy'');
+        END LOOP;
+        ALTER TABLE endpoint_hits RENAME TO endpoint_hits_legacy;
+        ALTER INDEX IF EXISTS ix_endpoint_hits_uri_timestamp RENAME TO ix_endpoint_hits_legacy_uri_timestamp;
+    END IF;
+END';
+
+CREATE TABLE IF NOT EXISTS endpoint_hits (
+    id        BIGSERIAL,
+    app_id    INT         NOT NULL,
+    uri_id    INT         NOT NULL,
+    ip        VARCHAR(45) NOT NULL,
+    timestamp TIMESTAMP   NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE INDEX IF NOT EXISTS ix_endpoint_hits_uri_id_timestamp ON endpoint_hits (uri_id, timestamp);
+
+CREATE TABLE IF NOT EXISTS endpoint_hits_default PARTITION OF endpoint_hits DEFAULT;
+
+DO '
+DECLARE
+    m TIMESTAMP;
+BEGIN
+    IF to_regclass(''endpoint_hits_legacy'') IS NOT NULL THEN
+        INSERT INTO apps (name) SELECT DISTINCT app FROM endpoint_hits_legacy ON CONFLICT DO NOTHING;
+        INSERT INTO uris (uri) SELECT DISTINCT uri FROM endpoint_hits_legacy ON CONFLICT DO NOTHING;
+        FOR m IN SELECT DISTINCT date_trunc(''month'', timestamp) FROM endpoint_hits_legacy LOOP
+            PERFORM ensure_endpoint_hits_partition(m);
+        END LOOP;
+        INSERT INTO endpoint_hits (app_id, uri_id, ip, timestamp)
+        SELECT a.id, u.id, h.ip, h.timestamp
+        FROM endpoint_hits_legacy h
+        JOIN apps a ON a.name = h.app
+        JOIN uris u ON u.uri = h.uri;
+        DROP TABLE endpoint_hits_legacy;
+    END IF;
+END';
+
+-- Pre-aggregated hit counts per (app, uri, time bucket), maintained incrementally on every write.
+-- Each aggregate table has a (uri, bucket) index for reads of given uris (PostgreSQL cannot skip the leading app of
+-- the primary key) and a bucket index for reads of all uris and for retention deletes.
+CREATE TABLE IF NOT EXISTS hit_rollup_minute (
+    app    VARCHAR(255)  NOT NULL,
+    uri    VARCHAR(2048) NOT NULL,
+    bucket TIMESTAMP     NOT NULL,
+    hits   BIGINT        NOT NULL,
+    PRIMARY KEY (app, uri, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_hit_rollup_minute_bucket ON hit_rollup_minute (bucket);
+CREATE INDEX IF NOT EXISTS ix_hit_rollup_minute_uri_bucket ON hit_rollup_minute (uri, bucket);
+
+CREATE TABLE IF NOT EXISTS hit_rollup_hour (
+    app    VARCHAR(255)  NOT NULL,
+    uri    VARCHAR(2048) NOT NULL,
+    bucket TIMESTAMP     NOT NULL,
+    hits   BIGINT        NOT NULL,
+    PRIMARY KEY (app, uri, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_hit_rollup_hour_bucket ON hit_rollup_hour (bucket);
+CREATE INDEX IF NOT EXISTS ix_hit_rollup_hour_uri_bucket ON hit_rollup_hour (uri, bucket);
+
+-- One-time backfill when rollups are introduced on a database that already has raw hits.
+INSERT INTO hit_rollup_minute (app, uri, bucket, hits)
+SELECT a.name, u.uri, date_trunc('minute', h.timestamp), COUNT(*)
+FROM endpoint_hits h
+JOIN apps a ON a.id = h.app_id
+JOIN uris u ON u.id = h.uri_id
+WHERE NOT EXISTS (SELECT 1 FROM hit_rollup_minute)
+GROUP BY a.name, u.uri, date_trunc('minute', h.timestamp);
+
+INSERT INTO hit_rollup_hour (app, uri, bucket, hits)
+SELECT app, uri, date_trunc('hour', bucket), SUM(hits)
+FROM hit_rollup_minute
+WHERE NOT EXISTS (SELECT 1 FROM hit_rollup_hour)
+GROUP BY app, uri, date_trunc('hour', bucket);
+
+-- Daily HyperLogLog sketches (4 KiB of registers) of visitor IPs per (app, uri), for approximate unique counts.
+CREATE TABLE IF NOT EXISTS hit_sketch_day (
+    app       VARCHAR(255)  NOT NULL,
+    uri       VARCHAR(2048) NOT NULL,
+    bucket    TIMESTAMP     NOT NULL,
+    registers BYTEA         NOT NULL,
+    PRIMARY KEY (app, uri, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_hit_sketch_day_bucket ON hit_sketch_day (bucket);
+CREATE INDEX IF NOT EXISTS ix_hit_sketch_day_uri_bucket ON hit_sketch_day (uri, bucket);
+
+-- Progress of the startup backfill of aggregates from raw hits; days before resume_from are done.
+CREATE TABLE IF NOT EXISTS aggregate_backfill (
+    name        VARCHAR(64) PRIMARY KEY,
+    completed   BOOLEAN     NOT NULL DEFAULT FALSE,
+    resume_from TIMESTAMP
+);
+
+-- Dictionary of visitor IPs to dense int ids, the member type of the visitor bitmaps.
+CREATE TABLE IF NOT EXISTS visitor_ips (
+    id SERIAL      PRIMARY KEY,
+    ip VARCHAR(45) NOT NULL UNIQUE
+);
+
+-- Daily Roaring bitmaps of visitor ids per (app, uri), for exact unique counts.
+CREATE TABLE IF NOT EXISTS hit_visitors_day (
+    app      VARCHAR(255)  NOT NULL,
+    uri      VARCHAR(2048) NOT NULL,
+    bucket   TIMESTAMP     NOT NULL,
+    visitors BYTEA         NOT NULL,
+    PRIMARY KEY (app, uri, bucket)
+);
+
+CREATE INDEX IF NOT EXISTS ix_hit_visitors_day_bucket ON hit_visitors_day (bucket);
+CREATE INDEX IF NOT EXISTS ix_hit_visitors_day_uri_bucket ON hit_visitors_day (uri, bucket);
+
+-- How far each on-disk ingest log has been loaded; updated in the same transaction as the loaded hits.
+CREATE TABLE IF NOT EXISTS ingest_log_checkpoint (
+    log      VARCHAR(1024) PRIMARY KEY,
+    segment  BIGINT        NOT NULL,
+    position BIGINT        NOT NULL
+);
@@ -0,0 +1,124 @@
+package ru.practicum.statsserver.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.stats.dto.EndpointHitDto;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Crash recovery of {@link HitLog}: a segment whose last frame is torn, by a partial write or a cut-off file,
+ * replays every complete record after a reopen and reports the unclean end.
+ */
+class HitLogTest {
+
+    private static final int SEGMENT_BYTES = 64 * 1024;
+    private static final int RECORDS = 10;
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123_000);
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void cleanSegmentReplaysEveryRecord() {
+        writeSealedSegment();
+
+        List<EndpointHitDto> replayed = new ArrayList<>();
+        boolean clean = reopen().read(0, 0, (hit, endOffset) -> replayed.add(hit));
+
+        assertThat(clean).isTrue();
+        assertThat(replayed).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(hits());
+    }
+
+    @Test
+    void corruptedLastFrameIsDroppedAndEarlierRecordsReplayed() throws IOException {
+        List<Long> ends = writeSealedSegment();
+        long lastStart = ends.get(RECORDS - 2);
+        try (FileChannel channel = FileChannel.open(segmentFile(), StandardOpenOption.WRITE)) {
+            // Flip one payload byte of the last record, as a write torn between payload and checksum would.
+            channel.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF}), lastStart + 12);
+        }
+
+        assertReplaysAllButLast();
+    }
+
+    @Test
+    void truncatedLastFrameIsDroppedAndEarlierRecordsReplayed() throws IOException {
+        List<Long> ends = writeSealedSegment();
+        long lastStart = ends.get(RECORDS - 2);
+        try (FileChannel channel = FileChannel.open(segmentFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(lastStart + 10);
+        }
+
+        assertReplaysAllButLast();
+    }
+
+    @Test
+    void activeSegmentIsSealedOnlyWhenIdleOrOld() {
+        try (HitLog log = new HitLog(dir, SEGMENT_BYTES, 0)) {
+            log.append(hits().get(0));
+
+            assertThat(log.sealIfDue(Duration.ofHours(1), Duration.ofHours(1))).isFalse();
+            assertThat(log.sealedSegments()).isEmpty();
+            assertThat(log.sealIfDue(Duration.ofHours(1), Duration.ZERO)).isTrue();
+            assertThat(log.sealedSegments()).containsExactly(0L);
+
+            log.append(hits().get(1));
+            assertThat(log.sealIfDue(Duration.ZERO, Duration.ofHours(1))).isTrue();
+            assertThat(log.sealedSegments()).containsExactly(0L, 1L);
+        }
+    }
+
+    private void assertReplaysAllButLast() {
+        HitLog reopened = reopen();
+        assertThat(reopened.sealedSegments()).containsExactly(0L);
+
+        List<EndpointHitDto> replayed = new ArrayList<>();
+        boolean clean = reopened.read(0, 0, (hit, endOffset) -> replayed.add(hit));
+
+        assertThat(clean).isFalse();
+        assertThat(replayed).usingRecursiveFieldByFieldElementComparator()
+                .containsExactlyElementsOf(hits().subList(0, RECORDS - 1));
+    }
+
+    /** Writes {@link #RECORDS} hits into segment 0 and seals it; returns the end offset of each record. */
+    private List<Long> writeSealedSegment() {
+        try (HitLog log = new HitLog(dir, SEGMENT_BYTES, 0)) {
+            hits().forEach(log::append);
+        }
+        List<Long> ends = new ArrayList<>();
+        reopen().read(0, 0, (hit, endOffset) -> ends.add(endOffset));
+        assertThat(ends).hasSize(RECORDS);
+        return ends;
+    }
+
+    private HitLog reopen() {
+        return new HitLog(dir, SEGMENT_BYTES, 0);
+    }
+
+    private Path segmentFile() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private static List<EndpointHitDto> hits() {
+        List<EndpointHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < RECORDS; i++) {
+            hits.add(new EndpointHitDto("ewm-main-service", "/events/" + i, "10.0.0." + i, TIMESTAMP.plusSeconds(i)));
+        }
+        return hits;
+    }
+}
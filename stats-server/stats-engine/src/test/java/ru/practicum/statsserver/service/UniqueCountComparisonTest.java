@@ -0,0 +1,157 @@
+package ru.practicum.statsserver.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.practicum.stats.dto.EndpointHitDto;
+import ru.practicum.stats.dto.ViewStats;
+import ru.practicum.statsserver.StatsEngineConfiguration;
+import ru.practicum.statsserver.sketch.HyperLogLog;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Unique-visitor counts of the same hits three ways: {@code COUNT(DISTINCT ip)} over raw hits, the exact
+ * {@link BitmapStatsReader} and the approximate {@link SketchStatsReader}. The bitmaps must match the raw query
+ * exactly, the sketches within three standard errors.
+ * <p>
+ * With {@code -Dbenchmark=true} it also prints the median latency of each path, for example
+ * <pre>
+ * mvn -B -pl stats-server/stats-engine -am test -Dbenchmark=true -Dtest=UniqueCountComparisonTest \
+ *     -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ * Needs Docker for PostgreSQL and is skipped without it. The window starts and ends mid-day, so both readers
+ * combine stored daily aggregates with raw hits at the edges.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(classes = StatsEngineConfiguration.class, properties = {
+        "spring.sql.init.mode=always",
+        "spring.sql.init.schema-locations=classpath:db/stats-schema.sql",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+class UniqueCountComparisonTest {
+
+    private static final String APP = "ewm-main-service";
+    /** URIs and their number of distinct visitors; each visitor hits its URI three times on average. */
+    private static final Map<String, Integer> VISITORS = Map.of(
+            "/events/1", 100,
+            "/events/2", 5_000,
+            "/events/3", 50_000);
+    private static final int DAYS = 14;
+    private static final int BATCH = 5_000;
+    private static final int RUNS = 20;
+    private static final double STANDARD_ERROR = 1.04 / Math.sqrt(HyperLogLog.REGISTERS);
+
+    private static final LocalDateTime FIRST_DAY = LocalDate.now().minusDays(DAYS + 1).atStartOfDay();
+    private static final LocalDateTime START = FIRST_DAY.plusHours(12);
+    private static final LocalDateTime END = FIRST_DAY.plusDays(DAYS - 1).plusHours(12);
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.1");
+
+    @Autowired
+    private StatsService statsService;
+    @Autowired
+    private HitBatchWriter hitBatchWriter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /** The container and the context are shared by both tests, so the hits are written once. */
+    private static boolean loaded;
+
+    @BeforeEach
+    void setUp() {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+    }
+
+    @Test
+    void bitmapsMatchCountDistinctAndSketchesAreWithinThreeStandardErrors() {
+        Map<String, Long> exact = toMap(countDistinct());
+        Map<String, Long> bitmaps = toMap(statsService.getStats(START, END, null, true, false));
+        Map<String, Long> sketches = toMap(statsService.getStats(START, END, null, true, true));
+
+        assertThat(exact).hasSize(VISITORS.size());
+        assertThat(bitmaps).isEqualTo(exact);
+        exact.forEach((uri, count) -> assertThat((double) sketches.get(uri))
+                .as(uri)
+                .isCloseTo(count, within(Math.max(1.0, 3 * STANDARD_ERROR * count))));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void printMedianLatencies() {
+        System.out.printf(Locale.ROOT, "COUNT(DISTINCT) %8.2f ms%n", medianMillis(this::countDistinct));
+        System.out.printf(Locale.ROOT, "bitmaps         %8.2f ms%n",
+                medianMillis(() -> statsService.getStats(START, END, null, true, false)));
+        System.out.printf(Locale.ROOT, "sketches        %8.2f ms%n",
+                medianMillis(() -> statsService.getStats(START, END, null, true, true)));
+    }
+
+    private List<ViewStats> countDistinct() {
+        return jdbcTemplate.query("SELECT a.name, u.uri, COUNT(DISTINCT h.ip) FROM endpoint_hits h"
+                        + " JOIN apps a ON a.id = h.app_id JOIN uris u ON u.id = h.uri_id"
+                        + " WHERE h.timestamp BETWEEN ? AND ? GROUP BY a.name, u.uri",
+                (rs, i) -> new ViewStats(rs.getString(1), rs.getString(2), rs.getLong(3)),
+                Timestamp.valueOf(START), Timestamp.valueOf(END));
+    }
+
+    /** Writes the hits through the same writer that maintains the daily sketches and bitmaps. */
+    private void load() {
+        Random random = new Random(42);
+        List<EndpointHitDto> batch = new ArrayList<>(BATCH);
+        for (Map.Entry<String, Integer> uri : VISITORS.entrySet()) {
+            int visitors = uri.getValue();
+            for (int i = 0; i < visitors * 3; i++) {
+                int visitor = random.nextInt(visitors);
+                String ip = "10." + (visitor >>> 16) + "." + ((visitor >>> 8) & 0xff) + "." + (visitor & 0xff);
+                LocalDateTime timestamp = FIRST_DAY.plusSeconds(random.nextLong(DAYS * 86_400L));
+                batch.add(new EndpointHitDto(APP, uri.getKey(), ip, timestamp));
+                if (batch.size() == BATCH) {
+                    hitBatchWriter.write(batch);
+                    batch = new ArrayList<>(BATCH);
+                }
+            }
+        }
+        if (!batch.isEmpty()) hitBatchWriter.write(batch);
+    }
+
+    private static double medianMillis(Supplier<?> query) {
+        query.get();
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long started = System.nanoTime();
+            query.get();
+            nanos[i] = System.nanoTime() - started;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2] / 1e6;
+    }
+
+    private static Map<String, Long> toMap(List<ViewStats> stats) {
+        return stats.stream().collect(Collectors.toMap(ViewStats::getUri, ViewStats::getHits));
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.statsserver.sketch;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Accuracy of {@link HyperLogLog} against the exact distinct count, which is what
+ * {@code COUNT(DISTINCT ip)} over raw hits returns. Visitor streams contain repeats, as real traffic does.
+ */
+class HyperLogLogTest {
+
+    /** {@code 1.04 / sqrt(2^12)}: the documented standard error of the estimate. */
+    private static final double STANDARD_ERROR = 1.04 / Math.sqrt(HyperLogLog.REGISTERS);
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000})
+    void estimateIsWithinThreeStandardErrorsOfExactCount(int visitors) {
+        HyperLogLog sketch = new HyperLogLog();
+        Set<String> exact = new HashSet<>();
+        Random random = new Random(visitors);
+        for (int i = 0; i < visitors * 3; i++) {
+            String ip = ip(random.nextInt(visitors), 0);
+            sketch.add(ip);
+            exact.add(ip);
+        }
+
+        assertThat((double) sketch.estimate())
+                .isCloseTo(exact.size(), within(Math.max(1.0, 3 * STANDARD_ERROR * exact.size())));
+    }
+
+    @Test
+    void aboutNinetyFivePercentOfEstimatesAreWithinTwoStandardErrors() {
+        int trials = 200;
+        int visitors = 20_000;
+        int withinTwoSigma = 0;
+        double totalRelativeError = 0;
+        for (int trial = 0; trial < trials; trial++) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (int i = 0; i < visitors; i++) {
+                sketch.add(ip(i, trial));
+            }
+            double relativeError = (sketch.estimate() - visitors) / (double) visitors;
+            totalRelativeError += relativeError;
+            if (Math.abs(relativeError) <= 2 * STANDARD_ERROR) withinTwoSigma++;
+        }
+
+        assertThat(withinTwoSigma).isGreaterThanOrEqualTo((int) (trials * 0.9));
+        assertThat(totalRelativeError / trials).isCloseTo(0.0, within(STANDARD_ERROR / 2));
+    }
+
+    @Test
+    void mergedDailySketchesEstimateTheUnionOfVisitors() {
+        HyperLogLog monday = new HyperLogLog();
+        HyperLogLog tuesday = new HyperLogLog();
+        Set<String> exact = new HashSet<>();
+        for (int i = 0; i < 30_000; i++) {
+            String ip = ip(i, 0);
+            monday.add(ip);
+            exact.add(ip);
+        }
+        for (int i = 20_000; i < 50_000; i++) {
+            String ip = ip(i, 0);
+            tuesday.add(ip);
+            exact.add(ip);
+        }
+
+        HyperLogLog range = new HyperLogLog();
+        range.merge(monday);
+        range.merge(tuesday);
+
+        assertThat((double) range.estimate()).isCloseTo(exact.size(), within(3 * STANDARD_ERROR * exact.size()));
+    }
+
+    @Test
+    void addReportsWhetherTheSketchChanged() {
+        HyperLogLog sketch = new HyperLogLog();
+
+        assertThat(sketch.add("10.0.0.1")).isTrue();
+        assertThat(sketch.add("10.0.0.1")).isFalse();
+    }
+
+    @Test
+    void serializedSketchRoundTrips() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (int i = 0; i < 1_000; i++) {
+            sketch.add(ip(i, 0));
+        }
+
+        assertThat(HyperLogLog.fromBytes(sketch.toBytes())).isEqualTo(sketch);
+    }
+
+    /** Distinct for every (visitor, salt) pair, IPv4-shaped like the values stored in hits. */
+    private static String ip(int visitor, int salt) {
+        return "10." + salt + "." + (visitor >>> 8) + "." + (visitor & 0xff);
+    }
+}